@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * WordFinder.findMatches() for slot patterns of different shapes: all
+ * blanks, a few letters, mostly filled, at several lengths. The result
+ * cache is off by default so that every call reaches the backend; run with
+ * -p cache=4096 to measure cache hits instead. SCAN runs on the Vector
+ * API kernel, since the forks load the incubator module.
+ *
+ * @author paul g
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class QueryBenchmark {
+
+    @Param({"REGEX", "INDEX", "TRIE", "SCAN"})
+    public String backend;
+
+    @Param({"...", ".....", "........", "s.a.e", "c.o.s.ord", "strang.", "a.........."})
+    public String pattern;
+
+    @Param({"0"})
+    public int cache;
+
+    private Object wordFinder;
+    private String regex;
+
+    @Setup
+    public void setUp() throws Throwable {
+        wordFinder = Solver.newWordFinder(backend);
+        Solver.setCacheCapacity(wordFinder, cache);
+        regex = "\\b" + pattern + "\\b";
+    }
+
+    @Benchmark
+    public List<String> findMatches() throws Throwable {
+        return Solver.findMatches(wordFinder, regex);
+    }
+
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full seeded solves of the sample boards, from a freshly loaded board to
+ * the first solution. The dictionary is loaded once per trial and shared,
+ * as Main does, and the seed is fixed so that every invocation makes the
+ * same choices.
+ *
+ * The plain backtracker is left out of the default modes, since it can run
+ * for minutes on anything bigger than board1; ask for it with
+ * -p mode=plain -p board=board1.
+ *
+ * @author paul g
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"INDEX"})
+    public String backend;
+
+    @Param({"fc", "ac", "cbj"})
+    public String mode;
+
+    @Param({"board0", "board1", "board2", "board3"})
+    public String board;
+
+    @Param({"0"})
+    public long seed;
+
+    private Object wordFinder;
+    private Object unsolved;
+
+    @Setup(Level.Trial)
+    public void loadDictionary() throws Throwable {
+        Solver.silence();
+        wordFinder = Solver.newWordFinder(backend);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadBoard() throws Throwable {
+        unsolved = Solver.newBoard(board, wordFinder, mode, seed);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        Solver.restore();
+    }
+
+    @Benchmark
+    public Object solve() throws Throwable {
+        Object solved = Solver.backtrack(unsolved);
+        if (solved == null){
+            throw new IllegalStateException(board + " has no solution");
+        }
+        return solved;
+    }
+
+}
@@ -0,0 +1,152 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Calls into the solver for the benchmarks. JMH won't generate code for
+ * classes in the unnamed package, and classes in a named package can't
+ * refer to the unnamed package's, so every call goes through a method
+ * handle instead. The handles are static final, which lets the JIT inline
+ * them like any direct call.
+ *
+ * Files are resolved against the crossworder.root system property, which
+ * defaults to the working directory.
+ *
+ * @author paul g
+ */
+final class Solver {
+
+    static final String ROOT = System.getProperty("crossworder.root", ".");
+
+    private static final Class<?> WORD_FINDER = load("WordFinder");
+    private static final Class<?> BACKEND = load("WordFinder$Backend");
+    private static final Class<?> BOARD = load("Board");
+
+    private static final MethodHandle NEW_WORD_FINDER = constructor(WORD_FINDER, String.class, BACKEND);
+    private static final MethodHandle FIND_MATCHES = method(WORD_FINDER, "findMatches", List.class, String.class);
+    private static final MethodHandle SET_CACHE_CAPACITY = method(WORD_FINDER, "setCacheCapacity", void.class, int.class);
+    private static final MethodHandle NEW_BOARD = constructor(BOARD, String.class, WORD_FINDER);
+    private static final MethodHandle INIT = method(BOARD, "init", void.class);
+    private static final MethodHandle SET_PROMPTING = method(BOARD, "setPrompting", void.class, boolean.class);
+    private static final MethodHandle SET_SEED = method(BOARD, "setSeed", void.class, long.class);
+    private static final MethodHandle SET_FORWARD_CHECKING = method(BOARD, "setForwardChecking", void.class, boolean.class);
+    private static final MethodHandle SET_ARC_CONSISTENCY = method(BOARD, "setArcConsistency", void.class, boolean.class);
+    private static final MethodHandle SET_BACKJUMPING = method(BOARD, "setBackjumping", void.class, boolean.class);
+    private static final MethodHandle BACKTRACK = method(BOARD, "backtrack", Object.class);
+    private static final MethodHandle IS_GOAL = method(BOARD, "isGoal", boolean.class);
+    private static final MethodHandle GET_MINIMUM_REMAINING = method(BOARD, "getMinimumRemaining", Object.class);
+
+    private static final PrintStream STDOUT = System.out;
+
+    private Solver(){}
+
+    /** Loads the dictionary with the given backend: REGEX, INDEX, TRIE or SCAN. */
+    static Object newWordFinder(String backend) throws Throwable {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object value = Enum.valueOf((Class) BACKEND, backend);
+        return (Object) NEW_WORD_FINDER.invokeExact((Object) (ROOT + "/resources/ospd.txt"), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<String> findMatches(Object wordFinder, String regex) throws Throwable {
+        return (List<String>) FIND_MATCHES.invokeExact(wordFinder, (Object) regex);
+    }
+
+    static void setCacheCapacity(Object wordFinder, int capacity) throws Throwable {
+        SET_CACHE_CAPACITY.invokeExact(wordFinder, capacity);
+    }
+
+    /**
+     * Loads resources/name.txt, initializes it without prompting, and sets
+     * up the given search: plain, fc, ac or cbj.
+     */
+    static Object newBoard(String name, Object wordFinder, String mode, long seed) throws Throwable {
+        Object board = (Object) NEW_BOARD.invokeExact((Object) (ROOT + "/resources/" + name + ".txt"), wordFinder);
+        INIT.invokeExact(board);
+        SET_PROMPTING.invokeExact(board, false);
+        SET_SEED.invokeExact(board, seed);
+        switch (mode){
+            case "plain":
+                break;
+            case "fc":
+                SET_FORWARD_CHECKING.invokeExact(board, true);
+                break;
+            case "ac":
+                SET_ARC_CONSISTENCY.invokeExact(board, true);
+                break;
+            case "cbj":
+                SET_BACKJUMPING.invokeExact(board, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        return board;
+    }
+
+    /** @return the solved board, or null */
+    static Object backtrack(Object board) throws Throwable {
+        return (Object) BACKTRACK.invokeExact(board);
+    }
+
+    static boolean isGoal(Object board) throws Throwable {
+        return (boolean) IS_GOAL.invokeExact(board);
+    }
+
+    /** @return the chosen point of interest, or null */
+    static Object getMinimumRemaining(Object board) throws Throwable {
+        return (Object) GET_MINIMUM_REMAINING.invokeExact(board);
+    }
+
+    /** The solver narrates everything it does; keep it out of the results. */
+    static void silence(){
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void restore(){
+        System.setOut(STDOUT);
+    }
+
+    private static Class<?> load(String name){
+        try {
+            return Class.forName(name);
+        }catch (ClassNotFoundException e){
+            throw new IllegalStateException("Solver classes not on the classpath", e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... params){
+        try {
+            MethodHandle handle = MethodHandles.lookup()
+                    .findConstructor(owner, MethodType.methodType(void.class, params));
+            return handle.asType(handle.type().generic());
+        }catch (ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Finds a method, private or not, and erases every reference type in
+     * its signature to Object, except for the return type given.
+     */
+    private static MethodHandle method(Class<?> owner, String name, Class<?> returns, Class<?>... params){
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            for (java.lang.reflect.Method m : owner.getDeclaredMethods()){
+                if (m.getName().equals(name) && m.getParameterCount() == params.length){
+                    MethodHandle handle = lookup.unreflect(m);
+                    MethodType erased = handle.type().erase().changeReturnType(returns);
+                    return handle.asType(erased);
+                }
+            }
+            throw new NoSuchMethodException(owner.getName() + "." + name);
+        }catch (ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The two things the plain backtracker does at every node:
+ * getMinimumRemaining() on a freshly initialized board, and isGoal() on a
+ * board already solved with forward checking, which is the case where it
+ * has to check every word.
+ *
+ * @author paul g
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepBenchmark {
+
+    @Param({"REGEX", "INDEX", "TRIE"})
+    public String backend;
+
+    @Param({"board0", "board1", "board2", "board3"})
+    public String board;
+
+    private Object fresh;
+    private Object solved;
+
+    @Setup
+    public void setUp() throws Throwable {
+        Solver.silence();
+        Object wordFinder = Solver.newWordFinder(backend);
+        fresh = Solver.newBoard(board, wordFinder, "plain", 0);
+        solved = Solver.newBoard(board, wordFinder, "fc", 0);
+        if (Solver.backtrack(solved) == null){
+            throw new IllegalStateException(board + " has no solution");
+        }
+    }
+
+    @TearDown
+    public void tearDown(){
+        Solver.restore();
+    }
+
+    @Benchmark
+    public Object getMinimumRemaining() throws Throwable {
+        return Solver.getMinimumRemaining(fresh);
+    }
+
+    @Benchmark
+    public boolean isGoal() throws Throwable {
+        return Solver.isGoal(solved);
+    }
+
+}
@@ -0,0 +1,324 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless batch mode: solves many board files in one JVM, all sharing one
+ * dictionary, and writes one JSON object per board, one per line, as each
+ * finishes.
+ *
+ * Every board gets a virtual thread of its own when the JDK has them (21
+ * and up), or a slot in a fixed pool otherwise. Solving is all CPU, so at
+ * most one board per core is searched at a time either way; the rest wait
+ * their turn.
+ *
+ * A board that runs out of time is reported as a timeout, along with the
+ * most complete partial fill its search reached.
+ *
+ * Theme words to add to the dictionary, and words to ban from it, can be
+ * given as files, which are watched while the batch runs: a board sees the
+ * lists as they were when its search started.
+ *
+ * Usage: java Batch [-backend regex|index|trie|scan] [-dictionary file] [-theme file]
+ *                   [-banned file] [-ac] [-cbj] [-lcv] [-timeout s] [-parallelism n]
+ *                   board files or directories...
+ *
+ * @author paul g
+ */
+public class Batch {
+
+    private static final String USAGE =
+            "Usage: java Batch [-backend regex|index|trie|scan] [-dictionary file] [-theme file] [-banned file] [-ac] [-cbj] [-lcv] [-timeout s] [-parallelism n] boards...";
+
+    private final WordFinder wordFinder;
+    private boolean arcConsistency = false;
+    private boolean backjumping = false;
+    private boolean leastConstraining = false;
+    private long timeoutMillis = 0;     // 0 for none
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public Batch(WordFinder wordFinder){
+        this.wordFinder = wordFinder;
+    }
+
+    /** Solves with AC-3 propagation on top of forward checking. */
+    public void setArcConsistency(boolean arcConsistency){
+        this.arcConsistency = arcConsistency;
+    }
+
+    /** Solves with conflict-directed backjumping on top of forward checking. */
+    public void setBackjumping(boolean backjumping){
+        this.backjumping = backjumping;
+    }
+
+    /** Tries each slot's least constraining candidates first. */
+    public void setLeastConstraining(boolean leastConstraining){
+        this.leastConstraining = leastConstraining;
+    }
+
+    /** Gives up on a board after so long; 0 waits forever. */
+    public void setTimeout(long timeoutMillis){
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /** How many boards may be searched at once. */
+    public void setParallelism(int parallelism){
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Solves every file, writing a line to out as each one finishes, in
+     * whatever order they finish.
+     *
+     * @return how many were solved
+     */
+    public int run(List<File> files, PrintStream out) throws InterruptedException {
+        wordFinder.getIndex(); // build it once, up front, rather than in a race
+        AtomicInteger solved = new AtomicInteger();
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService pool = newExecutor();
+        try {
+            for (File file : files){
+                pool.execute(() -> {
+                    try {
+                        permits.acquire();
+                    }catch (InterruptedException e){
+                        return;
+                    }
+                    try {
+                        String line = solve(file, solved);
+                        synchronized (out){
+                            out.println(line);
+                            out.flush();
+                        }
+                    }finally {
+                        permits.release();
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }finally {
+            pool.shutdownNow();
+        }
+        return solved.get();
+    }
+
+    /**
+     * Solves one board and describes how it went as a line of JSON,
+     * counting it in solved if it was.
+     */
+    private String solve(File file, AtomicInteger solved){
+        StringBuilder json = new StringBuilder();
+        json.append("{\"file\":").append(quote(file.getPath()));
+        if (!file.isFile()){
+            return json.append(",\"status\":\"error\",\"error\":\"no such file\"}").toString();
+        }
+
+        long start = System.nanoTime();
+        Board b;
+        try {
+            b = new Board(file.getPath(), wordFinder);
+        }catch (UncheckedIOException e){
+            return json.append(",\"status\":\"error\",\"error\":")
+                    .append(quote(String.valueOf(e.getCause().getMessage()))).append('}').toString();
+        }
+        if (solve(b, start, json)){ solved.incrementAndGet(); }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Solves a board that has been read but not initialized, with this
+     * batch's settings, appending how it went to a JSON object being built.
+     *
+     * @return whether it was solved
+     */
+    boolean solve(Board b, long start, StringBuilder json){
+        boolean solved = false;
+        try {
+            b.setPrompting(false);
+            b.init();
+            b.setForwardChecking(true);
+            b.setArcConsistency(arcConsistency);
+            b.setBackjumping(backjumping);
+            b.setLeastConstraining(leastConstraining);
+            b.setTimeLimit(timeoutMillis);
+            Board result = b.backtrack();
+            String status = (result != null) ? "solved" : b.isStopped() ? "timeout" : "unsolvable";
+
+            json.append(",\"status\":\"").append(status).append('"');
+            appendStats(json, b, start);
+            if (result != null){
+                solved = true;
+                json.append(",\"grid\":");
+                appendArray(json, Arrays.asList(result.boardToString().split("\n")));
+                json.append(",\"words\":");
+                appendArray(json, result.getWords());
+            }else if (b.isStopped()){
+                Board partial = b.getBestPartial();
+                json.append(",\"complete\":").append(partial.getCompleteSlots());
+                json.append(",\"slots\":").append(partial.getSlotCount());
+                json.append(",\"grid\":");
+                appendArray(json, Arrays.asList(partial.boardToString().split("\n")));
+            }
+        }catch (RuntimeException | StackOverflowError e){
+            json.append(",\"status\":\"error\",\"error\":").append(quote(String.valueOf(e)));
+            appendStats(json, b, start);
+        }
+        return solved;
+    }
+
+    private static void appendStats(StringBuilder json, Board b, long start){
+        json.append(String.format(Locale.ROOT, ",\"millis\":%.3f", (System.nanoTime() - start) / 1e6));
+        json.append(",\"nodes\":").append(b.getStats().getNodes());
+        json.append(",\"backtracks\":").append(b.getStats().getBacktracks());
+    }
+
+    private static void appendArray(StringBuilder json, List<String> values){
+        json.append('[');
+        for (int i = 0; i < values.size(); i++){
+            if (i > 0){ json.append(','); }
+            json.append(quote(values.get(i)));
+        }
+        json.append(']');
+    }
+
+    /** A JSON string literal. */
+    static String quote(String s){
+        StringBuilder rtn = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++){
+            char c = s.charAt(i);
+            switch (c){
+                case '"':  rtn.append("\\\""); break;
+                case '\\': rtn.append("\\\\"); break;
+                case '\n': rtn.append("\\n"); break;
+                case '\r': rtn.append("\\r"); break;
+                case '\t': rtn.append("\\t"); break;
+                default:
+                    if (c < 0x20){
+                        rtn.append(String.format("\\u%04x", (int) c));
+                    }else{
+                        rtn.append(c);
+                    }
+            }
+        }
+        return rtn.append('"').toString();
+    }
+
+    /**
+     * A virtual thread per task where the JDK has them, found reflectively
+     * so that this still compiles and runs on 17; a fixed pool otherwise.
+     */
+    private ExecutorService newExecutor(){
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }catch (ReflectiveOperationException e){
+            return Executors.newFixedThreadPool(parallelism);
+        }
+    }
+
+    /** Expands directories into the files directly inside them, sorted. */
+    static List<File> collect(List<String> paths){
+        ArrayList<File> files = new ArrayList<>();
+        for (String path : paths){
+            File f = new File(path);
+            File[] children = f.isDirectory() ? f.listFiles(File::isFile) : null;
+            if (children == null){
+                files.add(f);
+            }else{
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            }
+        }
+        return files;
+    }
+
+    public static void main(String args[]){
+        WordFinder.Backend backend = WordFinder.Backend.INDEX;
+        String dictionary = null;
+        String theme = null;
+        String banned = null;
+        boolean arcConsistency = false;
+        boolean backjumping = false;
+        boolean leastConstraining = false;
+        long timeoutMillis = 0;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        ArrayList<String> paths = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++){
+                if (args[i].equals("-backend") && i + 1 < args.length){
+                    backend = WordFinder.Backend.valueOf(args[++i].toUpperCase());
+                }else if (args[i].equals("-dictionary") && i + 1 < args.length){
+                    dictionary = args[++i];
+                }else if (args[i].equals("-theme") && i + 1 < args.length){
+                    theme = args[++i];
+                }else if (args[i].equals("-banned") && i + 1 < args.length){
+                    banned = args[++i];
+                }else if (args[i].equals("-timeout") && i + 1 < args.length){
+                    timeoutMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+                }else if (args[i].equals("-parallelism") && i + 1 < args.length){
+                    parallelism = Integer.parseInt(args[++i]);
+                }else if (args[i].equals("-ac")){
+                    arcConsistency = true;
+                }else if (args[i].equals("-cbj")){
+                    backjumping = true;
+                }else if (args[i].equals("-lcv")){
+                    leastConstraining = true;
+                }else if (args[i].startsWith("-")){
+                    System.err.println(USAGE);
+                    return;
+                }else{
+                    paths.add(args[i]);
+                }
+            }
+        }catch (IllegalArgumentException e){
+            System.err.println(USAGE);
+            return;
+        }
+        if (paths.isEmpty() || parallelism < 1){
+            System.err.println(USAGE);
+            return;
+        }
+
+        long start = System.nanoTime();
+        WordFinder wordFinder = (dictionary == null)
+                ? new WordFinder(backend) : new WordFinder(dictionary, backend);
+        try {
+            if (theme != null){ wordFinder.watch("theme", 1, false, theme); }
+            if (banned != null){ wordFinder.watch("banned", 1, true, banned); }
+        }catch (IOException e){
+            System.err.println("Could not read word list: " + e.getMessage());
+            return;
+        }
+        Batch batch = new Batch(wordFinder);
+        batch.setArcConsistency(arcConsistency);
+        batch.setBackjumping(backjumping);
+        batch.setLeastConstraining(leastConstraining);
+        batch.setTimeout(timeoutMillis);
+        batch.setParallelism(parallelism);
+        List<File> files = collect(paths);
+        try {
+            int solved = batch.run(files, System.out);
+            System.err.println(String.format("Solved %d of %d boards in %.1f s",
+                    solved, files.size(), (System.nanoTime() - start) / 1e9));
+        }catch (InterruptedException e){
+            System.err.println("Interrupted.");
+        }finally {
+            wordFinder.stopWatching();
+        }
+    }
+
+}
@@ -1,20 +1,34 @@
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jdk.jfr.FlightRecorder;
 
 /**
  * Represents the board of the crossword grid.
  *
- * Currently only supports square boards.
+ * Boards may be any rectangle: the grid is as many rows as the file has
+ * lines before the first empty one, and as wide as the longest of them,
+ * with short lines padded out by null spaces. Letters live in a flat char
+ * grid indexed by cell id, and every placement records what it overwrote
+ * on a single undo trail, so rolling back is a matter of replaying it.
  *
  * @author paul g
  */
 public class Board {
 
     // CONSTANTS
-    private static final Random rand = new Random();
     private static final Scanner userInput = new Scanner(System.in);
-    private static final WordFinder wordFinder = new WordFinder();
 
 
     private static final char BLANK = '_';
@@ -22,116 +36,443 @@ public class Board {
                                                 // building the regex
 
     private static final int MAX_OPTIONS_LENGTH = 10;
-    private final int BOARD_SIZE;
+    private static final int DEFAULT_SPLIT_DEPTH = 2;
+    private static final long STACK_BYTES_PER_SLOT = 4096;
+    private static final long MIN_DEEP_STACK = 1 << 20; // about the default
+    private static final int CLOCK_INTERVAL = 256;      // budget checks per clock read
+    private static final Comparator<PointOfInterest> BY_DOMAIN_SIZE =
+            Comparator.comparingInt((PointOfInterest poi) -> poi.domain.size())
+                    .thenComparingInt(poi -> poi.slot.id);
+    private final int rows;
+    private final int cols;
 
     // STATE
-    private static Scanner fileInput;
-    private Space[][] board;
-    private HashSet<String> totalWords;
-    private HashSet<PointOfInterest> pointsOfInterest;
+    private Random rand = new Random();
+    private final WordFinder wordFinder;
+    private WordFinder dictionary;      // wordFinder as it was when the search began
+    private ArrayList<char[]> lines;    // the grid as read, until init()
+    private char[] grid;                // letters by cell id, row * cols + col
+    private int blanks = 0;             // cells in grid still BLANK
+    private int invalidSlots = 0;       // full slots that don't spell a word
+    private int completeSlots = 0;      // full slots that do
+    private long hash = 0;              // Zobrist hash of the letters in grid
+    private long openHash = 0;          // and of the unassigned slots' letters
+    private int[] acrossSlot;           // slot id of each cell's across slot,
+    private int[] downSlot;             // and down slot, or -1
+    private int[] undoCells;            // cells overwritten, oldest first
+    private char[] undoChars;           // what each of them held before
+    private int undoSize = 0;
+    private int[] undoMarks;            // undoSize at each insertValue
+    private int undoDepth = 0;
+    private char[] wordBuffer;          // for reading words off the grid
+    private SearchStats stats = new SearchStats();
+    private HashSet<String> totalWords; // accepted besides the dictionary's
+    private ArrayList<PointOfInterest> pointsOfInterest; // by slot id
     private HashSet<PointOfInterest> poiIterator;
     private Stack<PointOfInterest> memoryStack;
-    private static String filename;
+    private String filename;
     private boolean waitUser = true; // wait for user input or not
-    private char[] line;
     private int skip = 0;
 
+    // FORWARD CHECKING
+    private boolean forwardChecking = false;
+    private WordIndex index;            // where the domains' word ids live
+    private Stack<Trail> trail;         // domains saved before narrowing
+    private Stack<Integer> trailMarks;  // trail size at each insertValue
+    private TreeSet<PointOfInterest> open; // unassigned, smallest domain first
+    private boolean arcConsistency = false;
+    private long revisions = 0;         // AC-3 arc revisions
+    private long prunedWords = 0;       // words removed by AC-3
+    private long wipeouts = 0;          // domains AC-3 emptied
+    private long propagationNanos = 0;
+
+    // BACKJUMPING
+    private static final int MAX_NOGOOD_SIZE = 4;
+    private static final int MAX_NOGOODS = 100000;
+    private static final BitSet STOPPED = new BitSet(); // what a search that gave up returns
+    private boolean backjumping = false;
+    private BitSet wipeoutCause;        // pruners of the last emptied domain
+    private int numNogoods = 0;
+    private long backjumps = 0;         // levels skipped by jumping
+    private long nogoodPrunes = 0;      // words refused by a nogood
+
+    // VALUE ORDERING
+    private boolean leastConstraining = false;
+    private boolean shuffleTies = true;
+
+    // TRANSPOSITIONS
+    private TranspositionTable transpositions; // dead ends, if turned on
+
+    // BUDGETS
+    private long timeLimitNanos = 0;    // 0 for none
+    private long deadline;              // System.nanoTime() to stop at, if limited
+    private int untilClock = 0;         // budget checks until the next clock read
+    private long nodeLimit = 0;         // 0 for none
+    private long lastNode;              // stats.nodes to stop at
+    private boolean stopped = false;    // whether the last search gave up early
+    private AtomicBoolean exhausted;    // set once this search runs out of budget;
+                                        // new each search, shared by its copies
+    private char[] bestGrid;            // the most complete partial fill seen
+    private int bestSlots = -1;         // and its completeSlots
+
+    // PARALLEL SEARCH
+    private int threads = 1;
+    private int splitDepth = DEFAULT_SPLIT_DEPTH;
+    private AtomicBoolean cancelled;    // shared by every copy in one search,
+                                        // or with other portfolio runs
+    private AtomicBoolean found;        // set by the first parallel task to solve;
+                                        // new each search, shared by its copies
+
+    /** @throws UncheckedIOException if the file can't be read */
     public Board(String filename){
+        this(filename, new WordFinder());
+    }
+
+    /**
+     * Creates a board from a file, answering its queries with an existing
+     * WordFinder so that the dictionary is only loaded once.
+     *
+     * @throws UncheckedIOException if the file can't be read
+     */
+    public Board(String filename, WordFinder wordFinder){
+        this(filename, readLines(new File(filename)), wordFinder);
+    }
+
+    /**
+     * Creates a board from text in the same format as a board file, for
+     * boards that never were one; name stands in for the file name.
+     */
+    public Board(String name, Readable text, WordFinder wordFinder){
+        this(name, readLines(new Scanner(text)), wordFinder);
+    }
+
+    private Board(String filename, ArrayList<char[]> lines, WordFinder wordFinder){
 
+        this.wordFinder = wordFinder;
+        this.dictionary = wordFinder;
         this.filename = filename;
-        File input;
+        this.lines = lines;
+        int width = 0;
+        for (char[] line : lines){ width = Math.max(width, line.length); }
 
-        // reading from sample file
-        input = new File(filename);
-        try {
-            fileInput = new Scanner(input);
+        // initialize important state
+        rows = lines.size();
+        cols = width;
+        grid = new char[rows * cols];
+        Arrays.fill(grid, NULL_SPACE);
+        undoCells = new int[grid.length];
+        undoChars = new char[grid.length];
+        undoMarks = new int[grid.length + 1];
+        acrossSlot = new int[grid.length];
+        downSlot = new int[grid.length];
+        Arrays.fill(acrossSlot, -1);
+        Arrays.fill(downSlot, -1);
+        wordBuffer = new char[Math.max(rows, cols)];
+        totalWords = new HashSet<>();
+        pointsOfInterest = new ArrayList<>();
+        poiIterator = new HashSet<>();
+        memoryStack = new Stack<>();
+    }
+
+    private static ArrayList<char[]> readLines(File input){
+        try (Scanner fileInput = new Scanner(input)){
+            ArrayList<char[]> lines = readLines(fileInput);
+            // a Scanner keeps read errors to itself
+            if (fileInput.ioException() != null){ throw fileInput.ioException(); }
+            return lines;
         }catch (IOException e){
-            e.printStackTrace();
+            throw new UncheckedIOException("Could not read " + input, e);
         }
+    }
 
-        // initialize important state
-        line = fileInput.nextLine().toCharArray();
-        BOARD_SIZE = line.length;
-        board = new Space[BOARD_SIZE][BOARD_SIZE];
-        totalWords = new HashSet<>();
-        pointsOfInterest = new HashSet<>();
+    /** Reads lines up to the first empty one. */
+    private static ArrayList<char[]> readLines(Scanner input){
+        ArrayList<char[]> lines = new ArrayList<>();
+        while (input.hasNextLine()){
+            char[] line = input.nextLine().toCharArray();
+            if (line.length == 0){ break; }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Copies a board, so that a parallel search task can insert and roll
+     * back words without touching anyone else's grid. Slots and domains are
+     * never modified once installed, so the copy shares them; only the grid
+     * and points of interest are new. The copy starts with an empty undo
+     * trail, since it never rolls back past the state it was copied from.
+     */
+    private Board(Board other){
+        this.wordFinder = other.wordFinder;
+        this.dictionary = other.dictionary;
+        this.filename = other.filename;
+        this.rand = new Random(other.rand.nextLong());
+        this.waitUser = false;
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.grid = other.grid.clone();
+        this.blanks = other.blanks;
+        this.invalidSlots = other.invalidSlots;
+        this.completeSlots = other.completeSlots;
+        this.hash = other.hash;
+        this.openHash = other.openHash;
+        this.acrossSlot = other.acrossSlot;
+        this.downSlot = other.downSlot;
+        this.undoCells = new int[grid.length];
+        this.undoChars = new char[grid.length];
+        this.undoMarks = new int[grid.length + 1];
+        this.wordBuffer = new char[other.wordBuffer.length];
+        totalWords = new HashSet<>(other.totalWords);
+
+        pointsOfInterest = new ArrayList<>(other.pointsOfInterest.size());
+        for (PointOfInterest poi : other.pointsOfInterest){
+            PointOfInterest copy = new PointOfInterest(poi.slot);
+            copy.domain = poi.domain;
+            copy.assigned = poi.assigned;
+            copy.pruners = poi.pruners;
+            copy.word = poi.word;
+            copy.level = poi.level;
+            copy.blanks = poi.blanks;
+            copy.invalid = poi.invalid;
+            copy.complete = poi.complete;
+            copy.hash = poi.hash;
+            pointsOfInterest.add(copy);
+        }
         poiIterator = new HashSet<>();
         memoryStack = new Stack<>();
+        for (PointOfInterest poi : other.memoryStack){
+            memoryStack.push(pointsOfInterest.get(poi.slot.id));
+        }
+
+        forwardChecking = other.forwardChecking;
+        arcConsistency = other.arcConsistency;
+        index = other.index;
+        trail = new Stack<>();
+        trailMarks = new Stack<>();
+        if (index != null){
+            open = new TreeSet<>(BY_DOMAIN_SIZE);
+            for (PointOfInterest poi : pointsOfInterest){
+                if (!poi.assigned){ open.add(poi); }
+            }
+        }
+        leastConstraining = other.leastConstraining;
+        transpositions = other.transpositions;
+        shuffleTies = other.shuffleTies;
+        threads = other.threads;
+        splitDepth = other.splitDepth;
+        deadline = other.deadline;
+        timeLimitNanos = other.timeLimitNanos;
+        nodeLimit = other.nodeLimit;
+        lastNode = other.lastNode;
+        cancelled = other.cancelled;
+        exhausted = other.exhausted;
+        found = other.found;
     }
 
     private void buildBoard(){
 
-        System.out.println("BOARD CONSTRUCTION YIELDS:");
-        System.out.println("---------------------------");
+        if (waitUser){
+            System.out.println("BOARD CONSTRUCTION YIELDS:");
+            System.out.println("---------------------------");
+        }
         // construct the initial board
-        for (int row = 0; row < BOARD_SIZE; row++){
+        for (int row = 0; row < rows; row++){
+            char[] line = lines.get(row);
             char c;
-            for (int col = 0; col < BOARD_SIZE; col++){
+            for (int col = 0; col < line.length; col++){
                 c = line[col];
-                switch (c){
-                    case BLANK:
-                        board[row][col] = new Space(row, col);
-                        break;
-                    case NULL_SPACE:
-                        board[row][col] = null;
-                        break;
-                    default:
-                        board[row][col] = new Space(row, col, Character.toLowerCase(c));
-                }
-                System.out.print(c);
-            }
-            System.out.println();
-            // advance at the end, since we clip one line at the start
-            try {
-                line = fileInput.nextLine().toCharArray();
-            }catch (NoSuchElementException e){
-                break;
+                int cell = row * cols + col;
+                grid[cell] = (c == BLANK || c == NULL_SPACE) ? c : Character.toLowerCase(c);
+                if (c == BLANK){ blanks++; }
+                hash ^= zobrist(cell, grid[cell]);
             }
+            if (waitUser){ System.out.println(line); }
         }
-        System.out.println("---------------------------");
+        lines = null;
+        if (waitUser){ System.out.println("---------------------------"); }
     }
 
     /**
-     * Utility code to determine whether or not to add a Space to the
-     * pointsOfInterest array, which is a HashSet of words that mark the
-     * 'start' of a word in the crossword puzzle.
+     * Builds the slot model: one Slot per maximal run of cells in each
+     * direction, in reading order, with a PointOfInterest for each. Runs of
+     * a single cell are skipped, since the slot running the other way
+     * already covers that cell, unless it is isolated on both sides.
      *
-     * PointOfInterest objects are added with both the ACROSS and DOWN
-     * parameters, to make backtracking easier. */
+     * Every pair of slots sharing a cell is then linked by a Crossing, with
+     * the cell's index in both slots, so that nothing later on has to walk
+     * the grid to find where a slot ends or what crosses it.
+     */
     private void buildPointsOfInterest() {
-        Space currSpace;
-        for (int row = 0; row < board.length; row++) {
-            for (int col = 0; col < board.length; col++) {
-                currSpace = board[row][col];
-                if (currSpace == null) {
+        Slot[] across = new Slot[grid.length];
+        Slot[] down = new Slot[grid.length];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                if (isNull(row, col)) {
                     continue;
                 }
-                if (row == 0 && col == 0) {
-                    pointsOfInterest.add(new PointOfInterest(currSpace, Direction.ACROSS));
-                    pointsOfInterest.add(new PointOfInterest(currSpace, Direction.DOWN));
-                } else if (row > 0 && col == 0) {
-                    pointsOfInterest.add(new PointOfInterest(currSpace, Direction.ACROSS));
-                } else if (row == 0 && col > 0) {
-                    pointsOfInterest.add(new PointOfInterest(currSpace, Direction.DOWN));
-                } else {
-                    if (board[row][col - 1] == null) {
-                        pointsOfInterest.add(new PointOfInterest(currSpace, Direction.ACROSS));
-                    } else if (board[row - 1][col] == null) {
-                        pointsOfInterest.add(new PointOfInterest(currSpace, Direction.DOWN));
-                    }
+                boolean startsAcross = col == 0 || isNull(row, col - 1);
+                boolean startsDown = row == 0 || isNull(row - 1, col);
+                int acrossLength = startsAcross ? runLength(row, col, Direction.ACROSS) : 0;
+                int downLength = startsDown ? runLength(row, col, Direction.DOWN) : 0;
+                boolean isolated = acrossLength == 1 && downLength == 1;
+                if (acrossLength > 1 || isolated) {
+                    addSlot(row, col, Direction.ACROSS, acrossLength, across);
+                }
+                if (downLength > 1) {
+                    addSlot(row, col, Direction.DOWN, downLength, down);
                 }
             }
         }
+
+        for (PointOfInterest poi : pointsOfInterest) {
+            Slot slot = poi.slot;
+            Slot[] others = (slot.direction == Direction.ACROSS) ? down : across;
+            ArrayList<Slot.Crossing> crossings = new ArrayList<>();
+            for (int i = 0; i < slot.cells.length; i++) {
+                Slot other = others[slot.cells[i]];
+                if (other == null) {
+                    continue;
+                }
+                int otherIndex = (slot.direction == Direction.ACROSS)
+                        ? slot.row - other.row
+                        : slot.col - other.col;
+                crossings.add(new Slot.Crossing(i, other, otherIndex));
+            }
+            slot.crossings = crossings.toArray(new Slot.Crossing[0]);
+        }
+
+        // start keeping count of which slots are full, and of any that are
+        // full without spelling a word
+        for (int cell = 0; cell < grid.length; cell++){
+            if (across[cell] != null){ acrossSlot[cell] = across[cell].id; }
+            if (down[cell] != null){ downSlot[cell] = down[cell].id; }
+        }
+        for (PointOfInterest poi : pointsOfInterest){
+            int[] cells = poi.slot.cells;
+            for (int i = 0; i < cells.length; i++){
+                if (grid[cells[i]] == BLANK){ poi.blanks++; }
+                poi.hash ^= zobrist(poi.slot.id, i, grid[cells[i]]);
+            }
+            validate(poi);
+            openHash ^= zobrist(poi.slot.id) ^ poi.hash;
+        }
+    }
+
+    /**
+     * Keeps blanks, the hash, and the counts of the slots through cell, up
+     * to date after its letter changes. A slot's word is only looked up
+     * when the change leaves it full.
+     */
+    private void cellChanged(int cell, char old, char now){
+        int change = ((now == BLANK) ? 1 : 0) - ((old == BLANK) ? 1 : 0);
+        blanks += change;
+        hash ^= zobrist(cell, old) ^ zobrist(cell, now);
+        if (acrossSlot[cell] >= 0){
+            PointOfInterest poi = pointsOfInterest.get(acrossSlot[cell]);
+            slotChanged(poi, cell - poi.slot.cells[0], old, now, change);
+        }
+        if (downSlot[cell] >= 0){
+            PointOfInterest poi = pointsOfInterest.get(downSlot[cell]);
+            slotChanged(poi, (cell - poi.slot.cells[0]) / cols, old, now, change);
+        }
+    }
+
+    /** cellChanged() for one slot through the cell, which is its i-th. */
+    private void slotChanged(PointOfInterest poi, int i, char old, char now, int change){
+        long key = zobrist(poi.slot.id, i, old) ^ zobrist(poi.slot.id, i, now);
+        poi.hash ^= key;
+        if (!poi.assigned){ openHash ^= key; }
+        poi.blanks += change;
+        validate(poi);
+    }
+
+    /**
+     * Updates whether poi is full but not a word, or full and a word, and
+     * invalidSlots and completeSlots with it.
+     */
+    private void validate(PointOfInterest poi){
+        boolean invalid = poi.blanks == 0 && !isWord(poi.slot);
+        boolean complete = poi.blanks == 0 && !invalid;
+        if (invalid != poi.invalid){
+            poi.invalid = invalid;
+            invalidSlots += invalid ? 1 : -1;
+        }
+        if (complete != poi.complete){
+            poi.complete = complete;
+            completeSlots += complete ? 1 : -1;
+        }
+    }
+
+    /** Whether the letters in a full slot spell a word. */
+    private boolean isWord(Slot slot){
+        int[] cells = slot.cells;
+        for (int i = 0; i < cells.length; i++){
+            wordBuffer[i] = grid[cells[i]];
+        }
+        return dictionary.isWord(wordBuffer, cells.length)
+                || (!totalWords.isEmpty() && totalWords.contains(new String(wordBuffer, 0, cells.length)));
+    }
+
+    /** Counts the cells from (row, col) up to the next null space or edge. */
+    private int runLength(int row, int col, Direction d){
+        int length = 0;
+        while (!isNull(row, col)){
+            length++;
+            if (d == Direction.ACROSS){ col++; }else{ row++; }
+        }
+        return length;
+    }
+
+    /**
+     * Creates the slot starting at (row, col) and its PointOfInterest, and
+     * records which slot each of its cells belongs to.
+     */
+    private PointOfInterest addSlot(int row, int col, Direction d, int length, Slot[] owners){
+        int step = (d == Direction.ACROSS) ? 1 : cols;
+        int[] cells = new int[length];
+        for (int i = 0; i < length; i++){
+            cells[i] = row * cols + col + i * step;
+        }
+        Slot slot = new Slot(pointsOfInterest.size(), d, row, col, cells);
+        if (owners != null){
+            for (int cell : cells){ owners[cell] = slot; }
+        }
+        PointOfInterest poi = new PointOfInterest(slot);
+        pointsOfInterest.add(poi);
+        return poi;
+    }
+
+    /** Whether (row, col) is off the board or a null space. */
+    private boolean isNull(int row, int col){
+        return row >= rows || col >= cols || grid[row * cols + col] == NULL_SPACE;
     }
 
 
 
     /** Initializes the board. */
     public void init(){
+        dictionary = wordFinder.snapshot();
         buildBoard();
         buildPointsOfInterest();
     }
 
+    /**
+     * Catches up with any words added to or removed from the dictionary
+     * since the last search, which are otherwise not seen, so that one
+     * search never sees two different dictionaries. Only between searches:
+     * once forward checking has built its domains, they are the ones used.
+     */
+    private void refreshDictionary(){
+        if (index != null || dictionary.getVersion() == wordFinder.getVersion()){ return; }
+        dictionary = wordFinder.snapshot();
+        for (PointOfInterest poi : pointsOfInterest){ validate(poi); }
+        if (transpositions != null){
+            // dead ends under the old words may not be under the new ones
+            transpositions = new TranspositionTable(transpositions.getCapacity());
+        }
+    }
+
     /**
 	 * Backtracker: Finds the first valid goal configuration, then returns.
      * Backtracking algorithm:
@@ -141,31 +482,127 @@ public class Board {
      *  2) Based on the direction of the point of interest, build a regular
      *      expression.
      *  3) Use the regular expression to find the next terms.
-     *  4) While there are next terms, choose one, push it onto all the Spaces,
+     *  4) While there are next terms, choose one, paste it onto the grid,
      *      push data to the MemoryStack, and recurse.
      *  5) After all the next terms have been exhausted, pop from the stack and
      *      return.
+     *
+     * Returns null both when there is no solution and when the search was
+     * cancelled or ran out of its time or node budget first; isStopped()
+     * tells the two apart, and getBestPartial() has the most complete fill
+     * the search got to before it stopped.
      */
     public Board backtrack(){
+        refreshDictionary();
+        startBudget();
+        Board result = search();
+        stopped = result == null && isCancelled();
+        return result;
+    }
+
+    private Board search(){
+        if (forwardChecking){
+            if (index == null){
+                buildDomains();
+                if (arcConsistency && !propagate(pointsOfInterest)){ return null; }
+            }
+            if (threads > 1){ return backtrackParallel(); }
+            if (backjumping){ return onDeepStack(() -> (backtrackJumping() == null) ? this : null); }
+            return onDeepStack(this::backtrackForward);
+        }
+        return onDeepStack(this::backtrackPlain);
+    }
+
+    /**
+     * Enumerates the board's distinct solutions lazily: each is searched for
+     * only when asked for, carrying on from where the last one was found
+     * instead of starting over. The search is forward checking's, so this
+     * turns forward checking on, and uses arc consistency and
+     * least-constraining-value ordering if they are set; it ignores
+     * backjumping and threads, and never prompts.
+     *
+     * No word appears twice within one solution. Solutions are returned
+     * once each, remembered by the grid's 64-bit hash rather than the grid
+     * itself.
+     *
+     * Every solution is a copy. This board is the one being searched, so
+     * leave it alone while iterating; once the iterator is exhausted, it is
+     * back as it started.
+     *
+     * The time and node budgets count from the first solution asked for,
+     * and once they run out the iteration ends.
+     *
+     * @param limit: the most solutions to return, or 0 for no limit
+     */
+    public Iterator<Board> solutions(long limit){
+        setForwardChecking(true);
+        waitUser = false;
+        refreshDictionary();
+        startBudget();
+        return new SolutionIterator(limit);
+    }
+
+    /**
+     * solutions(), as a sequential Stream. A stream that stops short, as
+     * limit() and findFirst() do, leaves this board part filled until it is
+     * closed, so use one in a try-with-resources block:
+     *
+     *      try (Stream<Board> s = board.streamSolutions(0)){ ... }
+     */
+    public Stream<Board> streamSolutions(long limit){
+        SolutionIterator solutions = (SolutionIterator) solutions(limit);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(solutions,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                .onClose(solutions::finish);
+    }
+
+    /**
+     * Runs a search on a thread of its own with a stack deep enough for one
+     * frame per slot, since the search recurses once per word and a large
+     * board overflows the default stack. Small boards search in place.
+     */
+    private Board onDeepStack(Supplier<Board> search){
+        long stackSize = (long) pointsOfInterest.size() * STACK_BYTES_PER_SLOT;
+        if (stackSize <= MIN_DEEP_STACK){ return search.get(); }
+        FutureTask<Board> task = new FutureTask<>(search::get);
+        new Thread(null, task, "solver", stackSize).start();
+        try {
+            return task.get();
+        }catch (InterruptedException e){
+            exhausted.set(true); // so the solver thread stops too
+            Thread.currentThread().interrupt();
+            return null;
+        }catch (ExecutionException e){
+            // a Supplier can only have thrown something unchecked
+            if (e.getCause() instanceof Error){ throw (Error) e.getCause(); }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /** The original backtracker, as described for backtrack(). */
+    private Board backtrackPlain(){
+        if (shouldStop()){ return null; }
         if (isGoal()){
             return this;
         }
 
         // Find which place we want to insert into.
+        SearchNodeEvent event = beginNode();
         PointOfInterest poi = getMinimumRemaining();
 		if (poi == null){ return null; }
 
 		// From there, get the next values.
-		ArrayList<String> nextVals = poi.getPossibleValues();
+		WordCursor nextVals = poi.getPossibleValues();
+        recordNode(event, poi, nextVals.size());
+        nextVals = orderCandidates(poi, nextVals);
 
-        while (!nextVals.isEmpty()){
-            String nextVal = promptUser(poi, nextVals);
+        while (!nextVals.isEmpty() && !isCancelled()){
+            String nextVal = nextVals.word(promptUser(poi, nextVals));
             insertValue(poi, nextVal);
             memoryStack.push(poi);
-            if (!(backtrack() == null)){ return this; }
+            if (!(backtrackPlain() == null)){ return this; }
 			//System.out.println("FAILED... BACKTRACKING.");
-            System.out.println(boardToString());
-            nextVals.remove(nextVal);
+            if (waitUser){ System.out.println(boardToString()); }
             poi = memoryStack.pop();
             rollback(poi);
         }
@@ -174,6 +611,792 @@ public class Board {
 
     }
 
+    /**
+     * Forward checking backtracker. Same as backtrack(), except that every
+     * point of interest keeps a live domain of candidate words. Inserting a
+     * word narrows only the domains of the slots that cross it, and a
+     * domain that ends up empty fails the insertion on the spot instead of
+     * being discovered some levels further down.
+     */
+    private Board backtrackForward(){
+        if (shouldStop()){ return null; }
+        if (isKnownFailure()){ return null; }
+        long nodesBefore = stats.nodes;
+        SearchNodeEvent event = beginNode();
+        PointOfInterest poi = getMostConstrained();
+        if (poi == null){
+            return isGoal() ? this : null; // every slot has been assigned
+        }
+        if (poi.domain.isEmpty()){ return null; }
+
+        WordCursor nextVals = orderCandidates(poi, candidates(poi));
+        recordNode(event, poi, nextVals.size());
+
+        while (!nextVals.isEmpty() && !isCancelled()){
+            int nextVal = promptUser(poi, nextVals);
+            if (insertValue(poi, nextVal)){
+                memoryStack.push(poi);
+                if (!(backtrackForward() == null)){ return this; }
+                memoryStack.pop();
+            }
+            rollback(poi);
+        }
+
+        recordFailure(nodesBefore);
+        return null;
+    }
+
+    /**
+     * Conflict-directed backjumping on top of forward checking. Every
+     * domain remembers the levels (depths in memoryStack) of the
+     * assignments that pruned it. When a point of interest runs out of
+     * words, the union of those levels over all its failed words is its
+     * conflict set, and the search jumps straight back to the deepest level
+     * in it; every level in between is unrelated to the failure and is
+     * skipped without trying its other words.
+     *
+     * Each conflict set found is also recorded as a nogood: the words at
+     * those levels can't all be on the board together with this point of
+     * interest still open, so that combination is refused on sight later.
+     *
+     * @return null once solved, STOPPED if the search gave up, otherwise
+     *      the conflict set
+     */
+    private BitSet backtrackJumping(){
+        int level = trailMarks.size();
+        if (shouldStop()){ return STOPPED; }
+        SearchNodeEvent event = beginNode();
+        PointOfInterest poi = getMostConstrained();
+        if (poi == null){
+            if (isGoal()){ return null; }
+            BitSet all = new BitSet();
+            all.set(0, level);
+            return all;
+        }
+
+        BitSet conflicts = new BitSet();
+        WordCursor nextVals = orderCandidates(poi, candidates(poi));
+        recordNode(event, poi, nextVals.size());
+
+        while (!nextVals.isEmpty()){
+            int nextVal = promptUser(poi, nextVals);
+            BitSet culprits = findNogood(poi, nextVal);
+            if (culprits != null){
+                nogoodPrunes++;
+                conflicts.or(culprits);
+                continue;
+            }
+
+            if (insertValue(poi, nextVal)){
+                memoryStack.push(poi);
+                culprits = backtrackJumping();
+                if (culprits == null){ return null; }
+                memoryStack.pop();
+                rollback(poi);
+                if (culprits == STOPPED){ return STOPPED; } // not a jump, nor a nogood
+                if (!culprits.get(level)){
+                    // nothing else at this level can fix it
+                    backjumps++;
+                    return culprits;
+                }
+            }else{
+                culprits = (BitSet) wipeoutCause.clone();
+                rollback(poi);
+            }
+            culprits.clear(level);
+            conflicts.or(culprits);
+        }
+
+        conflicts.or(poi.pruners);
+        recordNogood(conflicts);
+        return conflicts;
+    }
+
+    /**
+     * Checks whether putting word in poi would complete a recorded nogood.
+     *
+     * @return the levels of the rest of the nogood, or null if it is allowed
+     */
+    private BitSet findNogood(PointOfInterest poi, int word){
+        if (poi.nogoods == null){ return null; }
+        ArrayList<Nogood> candidates = poi.nogoods.get(word);
+        if (candidates == null){ return null; }
+        for (Nogood nogood : candidates){
+            BitSet levels = new BitSet();
+            boolean holds = true;
+            for (int i = 0; i < nogood.pois.length && holds; i++){
+                PointOfInterest other = nogood.pois[i];
+                if (other == poi){ continue; }
+                holds = other.assigned && nogood.words[i] == other.word;
+                levels.set(other.level);
+            }
+            if (holds){ return levels; }
+        }
+        return null;
+    }
+
+    /** Remembers that the words at the given levels can't go together. */
+    private void recordNogood(BitSet levels){
+        int size = levels.cardinality();
+        if (size == 0 || size > MAX_NOGOOD_SIZE || numNogoods >= MAX_NOGOODS){ return; }
+        Nogood nogood = new Nogood(size);
+        int i = 0;
+        for (int l = levels.nextSetBit(0); l >= 0; l = levels.nextSetBit(l + 1)){
+            nogood.pois[i] = memoryStack.get(l);
+            nogood.words[i] = memoryStack.get(l).word;
+            i++;
+        }
+        for (i = 0; i < size; i++){
+            PointOfInterest member = nogood.pois[i];
+            if (member.nogoods == null){ member.nogoods = new HashMap<>(); }
+            member.nogoods.computeIfAbsent(nogood.words[i], k -> new ArrayList<>()).add(nogood);
+        }
+        numNogoods++;
+    }
+
+    /**
+     * Parallel backtracker. The top splitDepth levels of the forward
+     * checking search fan out into one ForkJoin task per candidate word,
+     * each working on its own copy of the board; below that, every task
+     * runs backtrackForward() on its copy, on a deep stack of its own if the
+     * board is large, since a pool's workers have the default stack. The
+     * first task to reach the goal cancels all the others.
+     *
+     * @return the solved copy, or null
+     */
+    private Board backtrackParallel(){
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(ForkJoinTask.adapt(() -> branchParallel(0)));
+        }finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Forks a task for every candidate of the most constrained point of
+     * interest, then waits for them. This board is only read, never
+     * modified, while its children copy it.
+     */
+    private Board branchParallel(int depth){
+        if (depth >= splitDepth){ return onDeepStack(this::backtrackForward); }
+        SearchNodeEvent event = beginNode();
+        PointOfInterest poi = getMostConstrained();
+        if (poi == null){
+            return isGoal() ? this : null;
+        }
+
+        ArrayList<SearchTask> tasks = new ArrayList<>(poi.domain.size());
+        for (int id = poi.domain.nextId(0); id >= 0; id = poi.domain.nextId(id + 1)){
+            tasks.add(new SearchTask(this, poi, id, depth));
+        }
+        recordNode(event, poi, tasks.size());
+        Collections.shuffle(tasks, rand);
+
+        for (SearchTask task : ForkJoinTask.invokeAll(tasks)){
+            Board result = task.join();
+            if (result != null){ return result; }
+        }
+        return null;
+    }
+
+    /**
+     * A cursor over the words left in poi's domain, in random order, or in
+     * id order for orderCandidates() to sort.
+     */
+    private WordCursor candidates(PointOfInterest poi){
+        return poi.domain.cursor(index, leastConstraining ? null : rand);
+    }
+
+    /**
+     * The Zobrist key of letter c in cell: the grid's hash is the XOR of
+     * the keys of all its letters, so placing or removing one is a single
+     * XOR. Keys are random bits, fixed per (cell, letter), made by
+     * SplitMix64's mixing function instead of drawn into a table, so that
+     * large boards don't need megabytes of them. Blanks and null spaces
+     * have no key.
+     */
+    private static long zobrist(int cell, char c){
+        if (c < 'a' || c > 'z'){ return 0; }
+        return mix(cell * 26L + (c - 'a') + 1);
+    }
+
+    /** The key of letter c at position i of a slot, or 0 for a blank. */
+    private static long zobrist(int slot, int i, char c){
+        if (c < 'a' || c > 'z'){ return 0; }
+        return mix(((long) slot << 32) | (i << 5) | (c - 'a' + 1));
+    }
+
+    /** The key of a slot itself, for being one of the unassigned. */
+    private static long zobrist(int slot){
+        return mix((long) slot << 32);
+    }
+
+    /** SplitMix64's finalizer: spreads x over all 64 bits. */
+    private static long mix(long x){
+        long z = x * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Whether what is left to solve is a known dead end. Under forward
+     * checking, an unassigned slot's domain is exactly the words that fit
+     * its letters, and the assigned ones are settled, so the rest of the
+     * search depends only on which slots are unassigned and what letters
+     * they hold; openHash hashes just that. Two grids that differ only in
+     * their assigned slots, as when a search backtracks through one region
+     * of the board and comes back to the same failure in another, share a
+     * hash.
+     */
+    private boolean isKnownFailure(){
+        return transpositions != null && transpositions.contains(openHash);
+    }
+
+    /**
+     * Records the grid as a dead end, unless the search was cancelled, in
+     * which case it may have been given up on rather than exhausted.
+     *
+     * @param nodesBefore: stats.nodes when the search of it began
+     */
+    private void recordFailure(long nodesBefore){
+        if (transpositions == null || isCancelled()){ return; }
+        transpositions.add(openHash, stats.nodes - nodesBefore);
+    }
+
+    /** Sets the deadline and node budget going from now, for a new search. */
+    private void startBudget(){
+        deadline = System.nanoTime() + timeLimitNanos;
+        untilClock = 0;
+        startNodeBudget();
+        stopped = false;
+        exhausted = new AtomicBoolean(false);
+        found = new AtomicBoolean(false);
+        bestGrid = null;
+        bestSlots = -1;
+    }
+
+    /** Sets the node budget going from the nodes counted so far. */
+    private void startNodeBudget(){
+        lastNode = (nodeLimit > 0) ? stats.nodes + nodeLimit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Whether the search should give up: it has been cancelled, or has used
+     * up its nodes or its time, in which case this marks it exhausted so that
+     * every level, and every parallel task, unwinds without trying anything
+     * more. The cancellation flag is only read, since other searches may
+     * share it.
+     * Called once per node, so the clock is only read every CLOCK_INTERVAL
+     * calls; the rest cost a couple of comparisons.
+     */
+    private boolean shouldStop(){
+        if (isCancelled()){ return true; }
+        boolean outOfNodes = stats.nodes >= lastNode;
+        boolean outOfTime = timeLimitNanos > 0 && --untilClock < 0 && pastDeadline();
+        if (!outOfNodes && !outOfTime){ return false; }
+        exhausted.set(true);
+        return true;
+    }
+
+    private boolean pastDeadline(){
+        untilClock = CLOCK_INTERVAL;
+        return System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Whether the search was cancelled, has run out of budget, or is a
+     * parallel one that another task has already solved.
+     */
+    private boolean isCancelled(){
+        return (cancelled != null && cancelled.get()) || (exhausted != null && exhausted.get())
+                || (found != null && found.get());
+    }
+
+    /**
+     * Copies the grid as the most complete partial fill so far. Called just
+     * before a rollback, so only the fills the search backs out of are
+     * copied, not every step on the way down to them.
+     */
+    private void keepBest(){
+        bestSlots = completeSlots;
+        bestGrid = grid.clone();
+    }
+
+    /** Takes a parallel task's best partial fill, if it beats this one's. */
+    private synchronized void offerBest(Board child){
+        if (child.bestSlots > bestSlots){
+            bestSlots = child.bestSlots;
+            bestGrid = child.bestGrid;
+        }
+    }
+
+    /**
+     * Forward checking counterpart of getMinimumRemaining(): the unassigned
+     * point of interest with the smallest domain, or null once every point
+     * of interest has a word. No dictionary queries are needed, since the
+     * domains are already up to date, and no scan either: the open set is
+     * kept ordered by domain size as the domains change, so on boards with
+     * thousands of slots this stays logarithmic.
+     */
+    private PointOfInterest getMostConstrained(){
+        long start = System.nanoTime();
+        PointOfInterest rtn = open.isEmpty() ? null : open.first();
+        stats.chooseNanos += System.nanoTime() - start;
+        return rtn;
+    }
+
+    /**
+     * Starts timing a node for Flight Recorder, or returns null if it isn't
+     * running. The first event class loaded starts JFR up, which takes
+     * longer than solving most boards, so nothing touches one until a
+     * recording has done that already.
+     */
+    private static SearchNodeEvent beginNode(){
+        if (!FlightRecorder.isInitialized()){ return null; }
+        SearchNodeEvent event = new SearchNodeEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Counts a node of the search in stats, and records it for Flight
+     * Recorder if it is listening.
+     *
+     * @param event: from beginNode(), before the slot was chosen
+     */
+    private void recordNode(SearchNodeEvent event, PointOfInterest poi, int candidates){
+        stats.node(memoryStack.size(), candidates);
+        if (event == null){ return; }
+        event.end();
+        if (event.shouldCommit()){
+            event.depth = memoryStack.size();
+            event.row = poi.slot.row;
+            event.col = poi.slot.col;
+            event.direction = poi.slot.direction.name();
+            event.candidates = candidates;
+            event.commit();
+        }
+    }
+
+    /**
+     * Least-constraining-value ordering: sorts the candidates so that the
+     * word leaving the crossing slots the most options comes first. Every
+     * candidate has to be scored, so this reads all their ids off the
+     * cursor and returns a new one over them in order; with forward
+     * checking, the ids are the index's, and the letters are read straight
+     * out of it. Options are estimated from the
+     * dictionary's letter frequencies rather than the crossing domains: a
+     * word scores the product, over every crossing cell still blank, of
+     * how many words of the crossing slot's length have its letter there.
+     * A word whose letter no crossing word can have scores 0, and is tried
+     * last.
+     */
+    private WordCursor orderCandidates(PointOfInterest poi, WordCursor candidates){
+        if (!leastConstraining || candidates.size() < 2){ return candidates; }
+        long start = System.nanoTime();
+        int[] ids = candidates.remainingIds();
+        int length = poi.slot.cells.length;
+        byte[] letters;     // by index id, or else by place in ids
+        if (forwardChecking){
+            letters = index.letters(length);
+        }else{
+            letters = new byte[ids.length * length];
+            ArrayList<String> words = candidates.remaining();
+            for (int i = 0; i < ids.length; i++){
+                for (int pos = 0; pos < length; pos++){ letters[i * length + pos] = (byte) words.get(i).charAt(pos); }
+            }
+        }
+        LetterFrequencies frequencies = dictionary.getLetterFrequencies();
+        Slot.Crossing[] crossings = poi.slot.crossings;
+        int[] positions = new int[crossings.length];
+        int[][] counts = new int[crossings.length][];
+        int numOpen = 0;
+        for (Slot.Crossing crossing : crossings){
+            if (grid[poi.slot.cells[crossing.index]] != BLANK){ continue; } // same for every word
+            positions[numOpen] = crossing.index;
+            counts[numOpen++] = frequencies.atPosition(crossing.other.length(), crossing.otherIndex);
+        }
+
+        // ties are sorted by position, so they keep whatever order they
+        // start in, from the end
+        int[] order = new int[ids.length];   // candidates, by where they start
+        for (int i = 0; i < order.length; i++){ order[i] = i; }
+        if (shuffleTies){
+            // as Collections.shuffle() does it
+            for (int i = order.length; i > 1; i--){
+                int j = rand.nextInt(i);
+                int swap = order[i - 1]; order[i - 1] = order[j]; order[j] = swap;
+            }
+        }else{
+            // dictionary order, from the end
+            for (int i = 0; i < order.length; i++){ order[i] = order.length - 1 - i; }
+        }
+        long[] keys = new long[order.length];
+        for (int i = 0; i < order.length; i++){
+            int at = (forwardChecking ? ids[order[i]] : order[i]) * length;
+            double score = 1;
+            for (int j = 0; j < numOpen; j++){
+                int letter = letters[at + positions[j]] - 'a';
+                score *= (letter >= 0 && letter < 26) ? counts[j][letter] : 0;
+            }
+            // a score is never negative, so its bits sort the way it does;
+            // the top 32 of them are plenty to rank by
+            keys[i] = (Double.doubleToLongBits(score) & 0xffffffff00000000L) | i;
+        }
+        Arrays.sort(keys);
+        int[] sequence = new int[keys.length];
+        for (int i = 0; i < keys.length; i++){ sequence[i] = ids[order[(int) keys[keys.length - 1 - i]]]; }
+        stats.orderNanos += System.nanoTime() - start;
+        return candidates.ordered(sequence);
+    }
+
+    /**
+     * Replaces poi's domain, keeping the open set in order. The point of
+     * interest has to come out of the set before its size changes, or the
+     * set can't find it again.
+     */
+    private void setDomain(PointOfInterest poi, Domain domain){
+        if (!poi.assigned){ open.remove(poi); }
+        poi.domain = domain;
+        if (!poi.assigned){ open.add(poi); }
+    }
+
+    /**
+     * Sets up forward checking: seeds the domain of every point of interest
+     * from the letters already on the board.
+     */
+    private void buildDomains(){
+        index = dictionary.getIndex();
+        trail = new Stack<>();
+        trailMarks = new Stack<>();
+        open = new TreeSet<>(BY_DOMAIN_SIZE);
+
+        for (PointOfInterest poi : pointsOfInterest){
+            poi.pruners = new BitSet();
+            poi.domain = index.domainOf(buildPattern(poi.slot));
+            open.add(poi);
+        }
+    }
+
+    /**
+     * Narrows the domains of the unassigned points of interest crossing poi
+     * to the words that agree with the letters just placed. Every domain
+     * that changes is saved on the trail first, so rollback() can put it
+     * back.
+     *
+     * @return false if some crossing domain is now empty
+     */
+    private boolean narrowCrossings(PointOfInterest poi, byte[] letters, int at){
+        open.remove(poi);
+        poi.assigned = true;
+        openHash ^= zobrist(poi.slot.id) ^ poi.hash;
+        poi.level = trailMarks.size();
+        trailMarks.push(trail.size());
+        for (Slot.Crossing crossing : poi.slot.crossings){
+            PointOfInterest other = pointsOfInterest.get(crossing.other.id);
+            if (other.assigned){ continue; }
+            Domain narrowed = new Domain(other.domain);
+            char c = (char) letters[at + crossing.index];
+            if (narrowed.retain(index.column(narrowed.getLength(), crossing.otherIndex, c))){
+                trail.push(new Trail(other, other.domain, other.pruners));
+                setDomain(other, narrowed);
+                if (backjumping){
+                    other.pruners = (BitSet) other.pruners.clone();
+                    other.pruners.set(poi.level);
+                }
+                if (narrowed.isEmpty()){
+                    wipeoutCause = other.pruners;
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * AC-3 over the crossing graph. Starting from the given points of
+     * interest, removes every candidate with a letter that no word in the
+     * crossing slot's domain has at the shared cell, and keeps going from
+     * each domain that shrinks until nothing changes. Only unassigned
+     * points of interest take part; the assigned ones already narrowed
+     * their crossings when their words went in. Changes go on the trail
+     * like forward checking's, so rollback() undoes them too.
+     *
+     * @return false if some domain was emptied
+     */
+    private boolean propagate(Iterable<PointOfInterest> changed){
+        long start = System.nanoTime();
+        ArrayDeque<PointOfInterest> queue = new ArrayDeque<>();
+        for (PointOfInterest poi : changed){
+            if (!poi.assigned && !poi.queued){
+                poi.queued = true;
+                queue.add(poi);
+            }
+        }
+
+        boolean consistent = true;
+        while (consistent && !queue.isEmpty()){
+            PointOfInterest y = queue.poll();
+            y.queued = false;
+            for (Slot.Crossing crossing : y.slot.crossings){
+                PointOfInterest x = pointsOfInterest.get(crossing.other.id);
+                if (x.assigned){ continue; }
+                if (!revise(x, crossing.otherIndex, y, crossing.index)){ continue; }
+                if (x.domain.isEmpty()){
+                    wipeouts++;
+                    wipeoutCause = x.pruners;
+                    consistent = false;
+                    break;
+                }
+                if (!x.queued){
+                    x.queued = true;
+                    queue.add(x);
+                }
+            }
+        }
+        for (PointOfInterest poi : queue){ poi.queued = false; }
+
+        propagationNanos += System.nanoTime() - start;
+        return consistent;
+    }
+
+    /**
+     * Removes the words in x's domain whose letter at xPos has no support
+     * at yPos in y's domain.
+     *
+     * @return whether x's domain changed
+     */
+    private boolean revise(PointOfInterest x, int xPos, PointOfInterest y, int yPos){
+        revisions++;
+        int xLength = x.domain.getLength();
+        int yLength = y.domain.getLength();
+        long[] support = new long[(index.count(xLength) + 63) >>> 6];
+        int supported = 0;
+        for (char c = 'a'; c <= 'z'; c++){
+            if (!y.domain.intersects(index.column(yLength, yPos, c))){ continue; }
+            supported++;
+            long[] column = index.column(xLength, xPos, c);
+            for (int k = 0; k < support.length; k++){
+                support[k] |= column[k];
+            }
+        }
+        if (supported == 26){ return false; }
+
+        Domain narrowed = new Domain(x.domain);
+        if (!narrowed.retain(support)){ return false; }
+        prunedWords += x.domain.size() - narrowed.size();
+        trail.push(new Trail(x, x.domain, x.pruners));
+        setDomain(x, narrowed);
+        if (backjumping){
+            // x lost these words because of y's domain, so whatever
+            // pruned y is to blame for x as well
+            x.pruners = (BitSet) x.pruners.clone();
+            x.pruners.or(y.pruners);
+        }
+        return true;
+    }
+
+    /** Puts back every domain saved since the matching narrowCrossings(). */
+    private void restoreCrossings(PointOfInterest poi){
+        int mark = trailMarks.pop();
+        while (trail.size() > mark){
+            Trail t = trail.pop();
+            setDomain(t.poi, t.domain);
+            t.poi.pruners = t.pruners;
+        }
+        poi.assigned = false;
+        openHash ^= zobrist(poi.slot.id) ^ poi.hash;
+        poi.word = -1;
+        open.add(poi);
+    }
+
+    /**
+     * Turns prompting the user for each word on or off. With prompting off
+     * the board prints nothing at all, so turn it off before init() to keep
+     * it from printing itself.
+     */
+    public void setPrompting(boolean waitUser){
+        this.waitUser = waitUser;
+    }
+
+    /**
+     * Turns AC-3 propagation on or off: once before the search and after
+     * every insertValue(). Requires, and so turns on, forward checking.
+     * Must be set before backtracking.
+     */
+    public void setArcConsistency(boolean arcConsistency){
+        this.arcConsistency = arcConsistency;
+        if (arcConsistency){ forwardChecking = true; }
+    }
+
+    /**
+     * Counters and phase timers for this board's search, including every
+     * parallel task's once it has finished.
+     */
+    public SearchStats getStats(){
+        return stats;
+    }
+
+    /** Reports how much work AC-3 did and how much it pruned. */
+    public String getPropagationStats(){
+        return String.format("%d revisions, %d words pruned, %d wipeouts, %.1f ms",
+                revisions, prunedWords, wipeouts, propagationNanos / 1e6);
+    }
+
+    /**
+     * Solves with the given number of threads, 1 being the usual
+     * sequential search. Requires, and so turns on, forward checking. Must
+     * be set before backtracking.
+     */
+    public void setThreads(int threads){
+        this.threads = threads;
+        if (threads > 1){ forwardChecking = true; }
+    }
+
+    /** Seeds the random choice of candidates, for reproducible runs. */
+    public void setSeed(long seed){
+        rand = new Random(seed);
+    }
+
+    /**
+     * Shares a cancellation flag with the search: once it is set, backtrack()
+     * gives up and returns null. The search only ever reads it: neither a
+     * parallel search finding a solution nor running out of time or nodes
+     * sets it.
+     */
+    public void setCancellation(AtomicBoolean cancelled){
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Gives each backtrack() this long before it gives up and returns null;
+     * 0, the default, waits forever. The clock is only read every few
+     * nodes, so the search may run a little over.
+     */
+    public void setTimeLimit(long millis){
+        timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Gives each backtrack() this many nodes before it gives up and returns
+     * null; 0, the default, allows any number. In a parallel search, each
+     * task has the whole budget to itself.
+     */
+    public void setNodeLimit(long nodes){
+        nodeLimit = nodes;
+    }
+
+    /**
+     * Whether the last backtrack() returned null because it was cancelled
+     * or ran out of time or nodes, rather than because there is no
+     * solution.
+     */
+    public boolean isStopped(){
+        return stopped;
+    }
+
+    /**
+     * The most complete fill the last search reached, counting the slots
+     * holding words: the anytime answer to a search that stopped early.
+     * Its slots may not all be words, and its blanks are left blank, so it
+     * is not a goal; if the search never got past the starting grid, it is
+     * a copy of that.
+     */
+    public Board getBestPartial(){
+        Board partial = new Board(this);
+        if (bestGrid != null && bestSlots > completeSlots){
+            for (int cell = 0; cell < grid.length; cell++){
+                char old = partial.grid[cell];
+                if (old != bestGrid[cell]){
+                    partial.grid[cell] = bestGrid[cell];
+                    partial.cellChanged(cell, old, bestGrid[cell]);
+                }
+            }
+        }
+        return partial;
+    }
+
+    /** How many slots hold words: full, and spelling one. */
+    public int getCompleteSlots(){
+        return completeSlots;
+    }
+
+    /** How many slots the board has. */
+    public int getSlotCount(){
+        return pointsOfInterest.size();
+    }
+
+    /** The board's slots, by id, as init() built them. */
+    List<Slot> getSlots(){
+        ArrayList<Slot> slots = new ArrayList<>(pointsOfInterest.size());
+        for (PointOfInterest poi : pointsOfInterest){ slots.add(poi.slot); }
+        return slots;
+    }
+
+    /**
+     * Turns conflict-directed backjumping and nogood recording on or off.
+     * Requires, and so turns on, forward checking. Only the sequential
+     * search jumps. Must be set before backtracking.
+     */
+    public void setBackjumping(boolean backjumping){
+        this.backjumping = backjumping;
+        if (backjumping){ forwardChecking = true; }
+    }
+
+    /** Reports how far backjumping jumped and how much the nogoods pruned. */
+    public String getBackjumpStats(){
+        return String.format("%d backjumps, %d nogoods recorded, %d words refused by nogoods",
+                backjumps, numNogoods, nogoodPrunes);
+    }
+
+    /**
+     * Tries each slot's candidates least constraining first, instead of in
+     * random order: the words that leave the crossing slots the most
+     * options, going by the dictionary's letter frequencies. The parallel
+     * search's top levels still fan out over every word at once.
+     */
+    public void setLeastConstraining(boolean leastConstraining){
+        this.leastConstraining = leastConstraining;
+    }
+
+    /**
+     * Whether candidates scoring the same under least-constraining-value
+     * ordering are tried in random order, which is the default, or in
+     * dictionary order.
+     */
+    public void setShuffleTies(boolean shuffleTies){
+        this.shuffleTies = shuffleTies;
+    }
+
+    /**
+     * Remembers up to capacity partial fills that the search has proved
+     * can't be completed, and prunes any it reaches again by another order
+     * of placement; 0, the default, turns this off. Applies to the forward
+     * checking search, parallel tasks included, but not to backjumping,
+     * whose failures depend on the path taken to them, nor to solutions().
+     * Must be set before backtracking.
+     */
+    public void setTranspositionCapacity(int capacity){
+        transpositions = (capacity > 0) ? new TranspositionTable(capacity) : null;
+    }
+
+    /** The table of known dead ends, with its hit counts, or null if off. */
+    public TranspositionTable getTranspositions(){
+        return transpositions;
+    }
+
+    /** How many levels of the search fan out into parallel tasks. */
+    public void setSplitDepth(int splitDepth){
+        this.splitDepth = splitDepth;
+    }
+
+    /** Turns forward checking on or off. Must be set before backtracking. */
+    public void setForwardChecking(boolean forwardChecking){
+        this.forwardChecking = forwardChecking;
+    }
+
 	/**
 	 * Finds and returns the Point of Interest with the fewest number of 
 	 * remaining possibilities. It iterates through all the PointsOfInterest,
@@ -181,21 +1404,28 @@ public class Board {
 	 * to a PointOfInterest and returns it.
 	 */
 	private PointOfInterest getMinimumRemaining(){
-		ArrayList<String> currVals;
+		long start = System.nanoTime();
+		WordCursor currVals;
+		WordCursor rtnVals = null;
 		PointOfInterest rtn = null;
 		String regex;
 		int currMax = Integer.MAX_VALUE;
 		int currSize;
 		for (PointOfInterest poi : pointsOfInterest){
+			if (poi.blanks == 0){ continue; } // nothing left to choose
 			regex = buildRegex(poi);
-			currVals = wordFinder.findMatches(regex);
+			currVals = dictionary.candidates(regex, leastConstraining ? null : rand, 0);
 			currSize = currVals.size();
 			if (currSize > 1 && currSize < currMax){ // includes current term
 				rtn = poi;
-				rtn.setPossibleValues(currVals);
+				rtnVals = currVals;
 			}
             if (currSize == 2){ break; } // can't get lower than this
 		}
+		if (rtn != null){
+			rtn.setPossibleValues(rtnVals);
+		}
+		stats.chooseNanos += System.nanoTime() - start;
 		return rtn;
 	}
     /**
@@ -205,114 +1435,146 @@ public class Board {
      */
 
     private String buildRegex(PointOfInterest poi){
-        StringBuilder regex = new StringBuilder();
-        regex.append("\\b"); // so that we can match at the start of any line
-        switch (poi.d){
-            case ACROSS:
-                int row = poi.s.getRow();
-                for (int col = poi.s.getCol(); col < BOARD_SIZE && board[row][col] != null; col++){
-                    char curr = board[row][col].getChar();
-                    if (curr != BLANK){
-                        regex.append(curr);
-                    }else{
-                        regex.append(NULL_SPACE);
-                    }
-                }
-                break;
-            case DOWN:
-                int column = poi.s.getCol();
-                for (int r = poi.s.getRow(); r < BOARD_SIZE && board[r][column] != null; r++){
-                    char curr = board[r][column].getChar();
-                    if (curr != BLANK){
-                        regex.append(curr);
-                    }else{
-                        regex.append(NULL_SPACE);
-                    }
-                }
-                break;
+        // \\b so that we can match at the start of any line, and so that we
+        // don't match both "car" and "cargo"
+        return "\\b" + buildPattern(poi.slot) + "\\b";
+    }
+
+    /** The slot's letters, with NULL_SPACE for every blank. */
+    private String buildPattern(Slot slot){
+        char[] pattern = new char[slot.cells.length];
+        for (int i = 0; i < pattern.length; i++){
+            char curr = grid[slot.cells[i]];
+            pattern[i] = (curr != BLANK) ? curr : NULL_SPACE;
         }
-        regex.append("\\b"); // so that we don't match both "car" and "cargo"
-        return regex.toString();
+        return new String(pattern);
     }
 
     /**
      * Pastes a word onto the crossword grid. Visualize the grid as a sheet of
-     * paper, and letters as removable stickers. Each Space has a stack
-     * associated with it so that, if the backtracker reaches a dead end,
-     * letters can be "peeled off" without much hassle.
+     * paper, and letters as removable stickers. Every letter that replaces
+     * something else goes on the undo trail along with what it covered, so
+     * that, if the backtracker reaches a dead end, the word can be "peeled
+     * off" without much hassle.
+     *
+     * With forward checking on, the domains of the crossing points of
+     * interest are narrowed as well, followed by an AC-3 pass if arc
+     * consistency is on.
      *
      * @param poi: the point of interest, where the word begins
-     * @param nextVal: the word to be inserted
+     * @param nextVal: the id of the word to be inserted, among the words of
+     *      its length in the index
+     * @return false if forward checking left a crossing slot with no
+     *      candidates; the word is still inserted and must be rolled back
+     */
+    private boolean insertValue(PointOfInterest poi, int nextVal){
+        long start = System.nanoTime();
+        try {
+            return paste(poi, nextVal);
+        }finally {
+            stats.insertNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * insertValue() for the plain search, whose words come from whichever
+     * backend WordFinder has, and so are Strings rather than ids.
      */
     private void insertValue(PointOfInterest poi, String nextVal){
-        Space s;
-        char[] word = nextVal.toCharArray();
-        int row = poi.s.getRow();
-        int col = poi.s.getCol();
-        switch (poi.d){
-            case ACROSS:
-                for (int i = 0; i + col < BOARD_SIZE && i < word.length; i++){
-                    s = board[row][col + i];
-                    if (s == null){ break; }
-                    s.push(word[i]);
-                }
-                break;
-            case DOWN:
-                for (int i = 0; i + row < BOARD_SIZE && i < word.length; i++){
-                    s = board[row + i][col];
-                    if (s == null){ break; }
-                    s.push(word[i]);
-                }
-                break;
+        long start = System.nanoTime();
+        markUndo();
+        int[] cells = poi.slot.cells;
+        for (int i = 0; i < nextVal.length() && i < cells.length; i++){
+            place(cells[i], nextVal.charAt(i));
+        }
+        stats.insertNanos += System.nanoTime() - start;
+    }
+
+    /** insertValue(), untimed. */
+    private boolean paste(PointOfInterest poi, int nextVal){
+        markUndo();
+        int[] cells = poi.slot.cells;
+        byte[] letters = index.letters(cells.length);
+        int at = nextVal * cells.length;
+        for (int i = 0; i < cells.length; i++){
+            place(cells[i], (char) letters[at + i]);
         }
-        totalWords.add(nextVal);
+        poi.word = nextVal;
+        if (!narrowCrossings(poi, letters, at)){ return false; }
+        if (!arcConsistency){ return true; }
+
+        // carry on from every domain forward checking just narrowed
+        ArrayList<PointOfInterest> narrowed = new ArrayList<>();
+        for (int i = trailMarks.peek(); i < trail.size(); i++){
+            narrowed.add(trail.get(i).poi);
+        }
+        return propagate(narrowed);
+    }
+
+    /** Starts a word's stretch of the undo trail. */
+    private void markUndo(){
+        if (undoDepth == undoMarks.length){
+            undoMarks = Arrays.copyOf(undoMarks, 2 * undoMarks.length);
+        }
+        undoMarks[undoDepth++] = undoSize;
+    }
+
+    /** Writes c into cell, saving what it covers on the undo trail. */
+    private void place(int cell, char c){
+        if (grid[cell] == c){ return; }
+        if (undoSize == undoCells.length){
+            undoCells = Arrays.copyOf(undoCells, 2 * undoCells.length);
+            undoChars = Arrays.copyOf(undoChars, 2 * undoChars.length);
+        }
+        undoCells[undoSize] = cell;
+        undoChars[undoSize++] = grid[cell];
+        char old = grid[cell];
+        grid[cell] = c;
+        cellChanged(cell, old, c);
     }
 
     /**
-     * Peels a letter off each of the spaces associated with a point of
-     * interest.
+     * Peels the most recently inserted word off the grid, putting back
+     * whatever its letters covered, and with forward checking on, restores
+     * the domains its insertion narrowed. Words always come off in the
+     * reverse order they went on.
      *
      * @param poi: the point of interest to be rolled back
      */
     private void rollback(PointOfInterest poi){
-        int row = poi.s.getRow();
-        int col = poi.s.getCol();
-        Space s;
-        switch (poi.d){
-            case ACROSS:
-                for (int i = 0; i + col < BOARD_SIZE; i++){
-                    s = board[row][col + i];
-                    if (s == null){ break; }
-                    s.pop();
-                }
-                break;
-            case DOWN:
-                for (int i = 0; i + row < BOARD_SIZE; i++){
-                    s = board[row + i][col];
-                    if (s == null){ break; }
-                    s.pop();
-                }
-                break;
+        long start = System.nanoTime();
+        if (completeSlots > bestSlots){ keepBest(); }
+        if (forwardChecking){ restoreCrossings(poi); }
+        int mark = undoMarks[--undoDepth];
+        while (undoSize > mark){
+            undoSize--;
+            int cell = undoCells[undoSize];
+            char old = grid[cell];
+            grid[cell] = undoChars[undoSize];
+            cellChanged(cell, old, grid[cell]);
         }
+        stats.backtracks++;
+        stats.rollbackNanos += System.nanoTime() - start;
     }
 
     /**
      * Prints the board and presents to the user the next space to insert to,
      * requesting them to choose an option. The user can choose a specific
      * word, */
-    private String promptUser(PointOfInterest poi, ArrayList<String> nextVals){
-        // If we're not waiting on the user, pop a random term
-        if (skip > 0){ skip--; return nextVals.remove(rand.nextInt(nextVals.size())); }
-        if (!waitUser){ return nextVals.remove(rand.nextInt(nextVals.size())); }
+    private int promptUser(PointOfInterest poi, WordCursor candidates){
+        // If we're not waiting on the user, pop the next term
+        if (skip > 0){ skip--; return candidates.nextId(); }
+        if (!waitUser){ return candidates.nextId(); }
         
 		System.out.println(boardToString());
 		String[] command;
         boolean commandRecognized = false;
 
-        System.out.println(String.format("INSERT: (%d, %d)", poi.s.getRow(), poi.s.getCol()));
+        System.out.println(String.format("INSERT: (%d, %d)", poi.slot.row, poi.slot.col));
 
-        int listSize = nextVals.size();
-        if (listSize == 1){ return nextVals.get(0); }
+        int listSize = candidates.size();
+        if (listSize == 1){ return candidates.nextId(); }
+        ArrayList<String> nextVals = candidates.remaining();
         System.out.println(String.format("%d AVAILABLE OPTIONS", listSize));
         if (listSize > 10){
             System.out.println(String.format("PRINTING RANDOM %d...", MAX_OPTIONS_LENGTH));
@@ -339,14 +1601,14 @@ public class Board {
             command = userInput.next().split(" ");
             if (command.length == 1){
                 if (command[0].equals("r")){
-                    return nextVals.remove(rand.nextInt(nextVals.size()));
+                    return take(candidates, nextVals.get(rand.nextInt(listSize)));
                 }else {
                     char[] curr = command[0].toCharArray();
                     char c;
                     if (curr.length > 1){
                         if (curr[0] == '-'){
                             waitUser = false;
-                            return nextVals.remove(rand.nextInt(nextVals.size()));
+                            return candidates.nextId();
                         }
                         System.out.println("Command not recognized.");
                         continue;
@@ -358,7 +1620,7 @@ public class Board {
                         switch (i){
                             default:
                                 if (i < listSize) {
-                                    return nextVals.remove(i);
+                                    return take(candidates, nextVals.get(i));
                                 }
                         }
                     }
@@ -373,7 +1635,7 @@ public class Board {
                             System.out.printf("Must skip at least once.");
                         }
                         skip = i;
-                        return nextVals.remove(rand.nextInt(nextVals.size()));
+                        return candidates.nextId();
                     }catch (NumberFormatException e){
                         System.out.println("Command not recognized.");
                     }
@@ -385,7 +1647,12 @@ public class Board {
 
         // All else fails, return something random
         System.err.println("WARNING: Could not get input from user");
-        return nextVals.remove(rand.nextInt(nextVals.size()));
+        return take(candidates, nextVals.get(rand.nextInt(listSize)));
+    }
+
+    /** Takes the word the user chose off the cursor, and returns its id. */
+    private int take(WordCursor candidates, String word){
+        return candidates.take(word);
     }
 
     /**
@@ -393,107 +1660,305 @@ public class Board {
      *  1) Every space is filled
      *  2) Every word is present in the WordList
      *
+     *  Both are kept count of as letters go on and come off the grid, and
+     *  each slot's word is looked up once, as it fills, so this is only a
+     *  comparison of counters.
+     *
      *  Public only for testing purposes.
      *
      *  @return if the goal has been met
      */
     public boolean isGoal(){
-        ArrayList<String> results;
-        String currWord = "";
-        int row, col;
-        char c;
+        stats.goalChecks++;
+        return blanks == 0 && invalidSlots == 0;
+    }
+
+    /** The word in every slot, blanks included, in slot order. */
+    public List<String> getWords(){
+        ArrayList<String> words = new ArrayList<>(pointsOfInterest.size());
         for (PointOfInterest poi : pointsOfInterest){
-            row = poi.s.getRow();
-            col = poi.s.getCol();
-            switch (poi.d){
-                case ACROSS:
-                    while (col < BOARD_SIZE && board[row][col] != null) {
-                        c = board[row][col].getChar();
-                        if (c == BLANK){ return false; }
-                        currWord += c;
-                        col++;
-                    }
-                    break;
-                case DOWN:
-                    while (row < BOARD_SIZE && board[row][col] != null){
-                        c = board[row][col].getChar();
-                        if (c == BLANK){ return false; }
-                        currWord += c;
-                        row++;
-                    }
+            int[] cells = poi.slot.cells;
+            for (int i = 0; i < cells.length; i++){
+                wordBuffer[i] = grid[cells[i]];
             }
-            if (    !totalWords.contains(currWord) &&
-                    wordFinder.findMatches("\\b" + currWord + "\\b").isEmpty())
-            { return false; }
-            currWord = "";
+            words.add(new String(wordBuffer, 0, cells.length));
         }
-
-        return true;
+        return words;
     }
 
    	public String boardToString(){
-        Space s;
-        String rtn = "";
-        for (int row = 0; row < BOARD_SIZE; row++){
-            for (int col = 0; col < BOARD_SIZE; col++){
-                s = board[row][col];
-                if (s == null){
-                    rtn += NULL_SPACE;
-                }else {
-                    rtn += board[row][col].getChar();
-                }
-            }
-            rtn += "\n";
+        StringBuilder rtn = new StringBuilder(grid.length + rows);
+        for (int row = 0; row < rows; row++){
+            rtn.append(grid, row * cols, cols);
+            rtn.append('\n');
         }
-        return rtn;
+        return rtn.toString();
     }
 
     /** STRICTLY FOR DEBUGGING. */
     public void setRow(int row, Space[] data){
-        board[row] = data;
+        for (int col = 0; col < data.length && col < cols; col++){
+            int cell = row * cols + col;
+            char old = grid[cell];
+            grid[cell] = (data[col] == null) ? NULL_SPACE : data[col].getChar();
+            cellChanged(cell, old, grid[cell]);
+        }
     }
 
     /** STRICTLY FOR DEBUGGING. */
     public void addPOI(Space s, Direction d){
-        PointOfInterest poi = new PointOfInterest(s, d);
-        pointsOfInterest.add(poi);
-        poiIterator.add(poi);
+        int length = runLength(s.getRow(), s.getCol(), d);
+        poiIterator.add(addSlot(s.getRow(), s.getCol(), d, length, null));
     }
 
     /** STRICTLY FOR DEBUGGING. */
     public void addWord(String word){
         totalWords.add(word);
+        for (PointOfInterest poi : pointsOfInterest){
+            if (poi.invalid){ validate(poi); }
+        }
     }
 
     /** Enum for holding direction. */
     public enum Direction{ ACROSS, DOWN }
 
     /**
-     * Simple class for keeping track of Spaces where words begin, as those
+     * Simple class for keeping track of cells where words begin, as those
      * spaces will be double-counted. */
     private class PointOfInterest{
-        Space s;
-        Direction d;
-		ArrayList<String> possibleValues;
+        final Slot slot;
+		WordCursor possibleValues;
+
+        // forward checking only
+        Domain domain;
+        boolean assigned;
+        boolean queued;                // waiting in the AC-3 queue
+
+        int blanks;                    // cells still BLANK
+        boolean invalid;               // full, but not a word
+        boolean complete;              // full, and a word
+        long hash;                     // of its letters, for openHash
 
-        PointOfInterest(Space s, final Direction d){
-            this.s = s;
-            this.d = d;
+        // backjumping only
+        int word = -1;                 // the id of the word inserted, if assigned
+        int level;                     // its depth in memoryStack, if assigned
+        BitSet pruners;                // levels that narrowed domain
+        HashMap<Integer, ArrayList<Nogood>> nogoods; // by this slot's word
+
+        PointOfInterest(final Slot slot){
+            this.slot = slot;
         }
 
-		public void setPossibleValues(ArrayList<String> vals){
+		public void setPossibleValues(WordCursor vals){
 			possibleValues = vals;
 		}
 
-		public ArrayList<String> getPossibleValues(){
+		public WordCursor getPossibleValues(){
 			return possibleValues;
 		}
 
         @Override
         public String toString(){
-            return s.toString() + " : " + d;
+            return grid[slot.cells[0]] + " - " + slot;
+        }
+
+    }
+
+    /**
+     * One branch of a parallel search: copies the parent board, inserts a
+     * word, and carries on from there. Skips the work entirely once another
+     * task has found a solution.
+     */
+    private static class SearchTask extends RecursiveTask<Board>{
+        private static final long serialVersionUID = 1L;
+
+        private final Board parent;
+        private final PointOfInterest poi;
+        private final int word;        // by id
+        private final int depth;
+
+        SearchTask(Board parent, PointOfInterest poi, int word, int depth){
+            this.parent = parent;
+            this.poi = poi;
+            this.word = word;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Board compute(){
+            if (parent.isCancelled()){ return null; }
+            Board child = new Board(parent);
+            child.startNodeBudget(); // its own nodes, counted from 0
+            try {
+                PointOfInterest mine = child.pointsOfInterest.get(poi.slot.id);
+                if (!child.insertValue(mine, word)){ return null; }
+                child.memoryStack.push(mine);
+
+                Board result = child.branchParallel(depth + 1);
+                if (result != null){ parent.found.set(true); }
+                return result;
+            }finally {
+                parent.stats.add(child.stats);
+                parent.offerBest(child);
+            }
+        }
+    }
+
+    /**
+     * The search of backtrackForward(), with its recursion unrolled onto an
+     * explicit stack of choices so that it can stop at each solution and
+     * resume from there. A choice whose word is still on the board is
+     * marked inserted, and that word comes off before the next one goes on.
+     */
+    private class SolutionIterator implements Iterator<Board>{
+        private final long limit;
+        private final ArrayDeque<Choice> choices = new ArrayDeque<>();
+        private final BitSet[] placed = new BitSet[Math.max(rows, cols) + 1]; // ids on the board, by length
+        private final HashSet<Long> seen = new HashSet<>();     // solutions returned
+        private boolean started = false;
+        private boolean done = false;
+        private Board next;
+
+        SolutionIterator(long limit){
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean hasNext(){
+            if (next == null && !done){ next = advance(); }
+            return next != null;
+        }
+
+        @Override
+        public Board next(){
+            if (!hasNext()){ throw new NoSuchElementException(); }
+            Board rtn = next;
+            next = null;
+            if (limit > 0 && seen.size() >= limit){ finish(); } // so as not to wait on hasNext()
+            return rtn;
+        }
+
+        /** Searches on to the next solution, or returns null if there is none. */
+        private Board advance(){
+            if (limit > 0 && seen.size() >= limit){ return finish(); }
+            if (!started){
+                started = true;
+                if (index == null){
+                    buildDomains();
+                    if (arcConsistency && !propagate(pointsOfInterest)){ return finish(); }
+                }
+                Board rtn = expand();
+                if (rtn != null){ return rtn; }
+            }
+
+            while (!choices.isEmpty()){
+                if (shouldStop()){ return finish(); }
+                Choice top = choices.peek();
+                if (top.inserted){
+                    takeBack(top);
+                }
+                if (top.nextVals.isEmpty()){
+                    choices.pop();
+                    continue;
+                }
+                int nextVal = promptUser(top.poi, top.nextVals);
+                BitSet same = placed(top.poi);
+                if (same.get(nextVal)){ continue; } // already in another slot
+                if (!insertValue(top.poi, nextVal)){
+                    rollback(top.poi);
+                    continue;
+                }
+                memoryStack.push(top.poi);
+                same.set(nextVal);
+                top.word = nextVal;
+                top.inserted = true;
+                Board rtn = expand();
+                if (rtn != null){ return rtn; }
+            }
+            return finish();
+        }
+
+        /**
+         * Chooses the next point of interest and pushes a choice for it, or,
+         * once every one has a word, copies the board if it is a solution
+         * not returned before.
+         */
+        private Board expand(){
+            SearchNodeEvent event = beginNode();
+            PointOfInterest poi = getMostConstrained();
+            if (poi == null){
+                if (!isGoal() || !seen.add(hash)){ return null; }
+                return new Board(Board.this);
+            }
+            if (poi.domain.isEmpty()){ return null; }
+
+            WordCursor nextVals = orderCandidates(poi, candidates(poi));
+            recordNode(event, poi, nextVals.size());
+            choices.push(new Choice(poi, nextVals));
+            return null;
+        }
+
+        /** Takes a choice's word back off the board. */
+        private void takeBack(Choice choice){
+            memoryStack.pop();
+            placed(choice.poi).clear(choice.word);
+            rollback(choice.poi);
+            choice.inserted = false;
+        }
+
+        /** The ids on the board of the words as long as poi's. */
+        private BitSet placed(PointOfInterest poi){
+            int length = poi.slot.cells.length;
+            if (placed[length] == null){ placed[length] = new BitSet(); }
+            return placed[length];
+        }
+
+        /** Ends the iteration, taking every word still on the board back off. */
+        private Board finish(){
+            while (!choices.isEmpty()){
+                Choice choice = choices.pop();
+                if (choice.inserted){ takeBack(choice); }
+            }
+            done = true;
+            return null;
         }
+    }
+
+    /** One level of SolutionIterator's search. */
+    private class Choice{
+        PointOfInterest poi;
+        WordCursor nextVals;            // the words not tried yet
+        int word;                       // the id of the one on the board, if inserted
+        boolean inserted;
 
+        Choice(PointOfInterest poi, WordCursor nextVals){
+            this.poi = poi;
+            this.nextVals = nextVals;
+        }
+    }
+
+    /** A domain as it was before narrowCrossings() replaced it. */
+    private class Trail{
+        PointOfInterest poi;
+        Domain domain;
+        BitSet pruners;
+
+        Trail(PointOfInterest poi, Domain domain, BitSet pruners){
+            this.poi = poi;
+            this.domain = domain;
+            this.pruners = pruners;
+        }
+    }
+
+    /** Words that can't all be on the board at once, one per point of interest. */
+    private class Nogood{
+        PointOfInterest[] pois;
+        int[] words;                    // by id
+
+        Nogood(int size){
+            pois = new PointOfInterest[size];
+            words = new int[size];
+        }
     }
 
 
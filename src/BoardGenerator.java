@@ -0,0 +1,127 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates blank boards of any size, for testing how the solver scales.
+ * Null spaces are scattered at random with the usual 180 degree symmetry of
+ * a crossword, then more are added wherever a run of cells is still longer
+ * than the longest word allowed, so that every slot is a length the
+ * dictionary has plenty of words for.
+ *
+ * Usage: java BoardGenerator rows cols [seed] [density] [max word length]
+ *
+ * @author paul g
+ */
+public class BoardGenerator {
+
+    private static final char BLANK = '_';
+    private static final char NULL_SPACE = '.';
+
+    public static final double DEFAULT_DENSITY = 0.2;
+    public static final int DEFAULT_MAX_LENGTH = 5;
+
+    private final int rows;
+    private final int cols;
+    private final Random rand;
+    private double density = DEFAULT_DENSITY;
+    private int maxLength = DEFAULT_MAX_LENGTH;
+
+    public BoardGenerator(int rows, int cols, long seed){
+        this.rows = rows;
+        this.cols = cols;
+        this.rand = new Random(seed);
+    }
+
+    /** The share of cells to make null spaces before splitting long runs. */
+    public void setDensity(double density){
+        this.density = density;
+    }
+
+    /**
+     * The longest run of cells allowed in either direction: at least 2,
+     * since a longer run is split at a cell strictly inside it.
+     */
+    public void setMaxLength(int maxLength){
+        if (maxLength < 2){ throw new IllegalArgumentException("Max length under 2: " + maxLength); }
+        this.maxLength = maxLength;
+    }
+
+    /** @return the board, one line per row, in the format Board reads */
+    public String generate(){
+        char[][] grid = new char[rows][cols];
+        for (char[] row : grid){ Arrays.fill(row, BLANK); }
+
+        for (int row = 0; row < rows; row++){
+            for (int col = 0; col < cols; col++){
+                if (rand.nextDouble() < density / 2){ block(grid, row, col); }
+            }
+        }
+
+        // split runs that are too long, at a random cell of each
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            for (int row = 0; row < rows; row++){
+                for (int col = 0; col < cols; col++){
+                    int across = run(grid, row, col, 0, 1);
+                    if (across > maxLength){
+                        block(grid, row, col + 1 + rand.nextInt(across - 2));
+                        changed = true;
+                    }
+                    int down = run(grid, row, col, 1, 0);
+                    if (down > maxLength){
+                        block(grid, row + 1 + rand.nextInt(down - 2), col);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        StringBuilder rtn = new StringBuilder(rows * (cols + 1));
+        for (char[] row : grid){
+            rtn.append(row).append('\n');
+        }
+        return rtn.toString();
+    }
+
+    /** Makes (row, col) and its mirror image null spaces. */
+    private void block(char[][] grid, int row, int col){
+        grid[row][col] = NULL_SPACE;
+        grid[rows - 1 - row][cols - 1 - col] = NULL_SPACE;
+    }
+
+    /**
+     * The length of the run starting at (row, col), or 0 if a run doesn't
+     * start there.
+     */
+    private int run(char[][] grid, int row, int col, int dRow, int dCol){
+        if (grid[row][col] == NULL_SPACE){ return 0; }
+        int prevRow = row - dRow;
+        int prevCol = col - dCol;
+        if (prevRow >= 0 && prevCol >= 0 && grid[prevRow][prevCol] != NULL_SPACE){ return 0; }
+        int length = 0;
+        while (row < rows && col < cols && grid[row][col] != NULL_SPACE){
+            length++;
+            row += dRow;
+            col += dCol;
+        }
+        return length;
+    }
+
+    public static void main(String args[]){
+        if (args.length < 2){
+            System.err.println("Usage: java BoardGenerator rows cols [seed] [density] [max word length]");
+            return;
+        }
+        try {
+            BoardGenerator generator = new BoardGenerator(Integer.parseInt(args[0]),
+                    Integer.parseInt(args[1]), (args.length > 2) ? Long.parseLong(args[2]) : 0);
+            if (args.length > 3){ generator.setDensity(Double.parseDouble(args[3])); }
+            if (args.length > 4){ generator.setMaxLength(Integer.parseInt(args[4])); }
+            System.out.print(generator.generate());
+        }catch (IllegalArgumentException e){ // a bad number, or a max length under 2
+            System.err.println("Usage: java BoardGenerator rows cols [seed] [density] [max word length]");
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A CharSequence read straight out of a ByteBuffer, one byte per char
+ * (ISO-8859-1). Wrapped around a mapped file, this lets regular
+ * expressions run over the file in place, where decoding it would copy
+ * all of it onto the heap at twice the size first.
+ *
+ * @author paul g
+ */
+public class ByteCharSequence implements CharSequence {
+
+    private final ByteBuffer bytes;     // only ever read by absolute index
+
+    public ByteCharSequence(ByteBuffer bytes){
+        this.bytes = bytes.slice();
+    }
+
+    @Override
+    public int length(){
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index){
+        return (char) (bytes.get(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end){
+        if (start < 0 || end > length() || start > end){
+            throw new IndexOutOfBoundsException(String.format("[%d, %d) of %d", start, end, length()));
+        }
+        return new ByteCharSequence(bytes.slice(start, end - start));
+    }
+
+    @Override
+    public String toString(){
+        byte[] copy = new byte[bytes.limit()];
+        bytes.get(0, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+
+}
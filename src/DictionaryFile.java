@@ -0,0 +1,175 @@
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.BufferedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A word list compiled ahead of time, together with its WordIndex, into
+ * one binary file that WordFinder maps and uses as is. Opening one only
+ * reads the header. The words and bitsets of each length are bulk copied
+ * out of the mapping the first time that length is asked for, so nothing
+ * is split into lines or indexed letter by letter, the lengths a run never
+ * needs are never touched, and the file itself sits in the page cache that
+ * every JVM on the host shares.
+ *
+ * Layout, big-endian:
+ *
+ *      int     MAGIC
+ *      int     VERSION
+ *      int     flags: COMPLETE if every word was indexable
+ *      int     n, the number of word lengths (longest + 1)
+ *      long    offset and length of the text
+ *      n times:
+ *          int     word count
+ *          int     0
+ *          long    offset of the words: count fixed width records
+ *          long    offset of the bitsets: length * 26 columns of
+ *                  ceil(count / 64) longs, aligned to 8
+ *      the original text, then the words and bitsets of every length
+ *
+ * The text is kept so that regular expressions, and any backend built
+ * from text, still work against a compiled dictionary.
+ *
+ * Usage: java DictionaryFile words.txt words.dict
+ *
+ * @author paul g
+ */
+public class DictionaryFile {
+
+    static final int MAGIC = 0x58575244;    // "XWRD"
+    static final int VERSION = 1;
+    private static final int COMPLETE = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int LENGTH_ENTRY_SIZE = 24;
+    private static final int ALPHABET_SIZE = 26;
+
+    private final ByteCharSequence text;
+    private final WordIndex index;
+
+    /**
+     * Reads a compiled dictionary out of a buffer, normally a mapped file.
+     *
+     * @throws IOException if it isn't one, or is from another version
+     */
+    public DictionaryFile(ByteBuffer buffer) throws IOException {
+        if (!isCompiled(buffer)){ throw new IOException("Not a compiled dictionary"); }
+        int version = buffer.getInt(4);
+        if (version != VERSION){
+            throw new IOException(String.format("Dictionary is version %d, expected %d; recompile it", version, VERSION));
+        }
+        boolean complete = (buffer.getInt(8) & COMPLETE) != 0;
+        int lengths = buffer.getInt(12);
+        text = new ByteCharSequence(buffer.slice((int) buffer.getLong(16), (int) buffer.getLong(24)));
+
+        index = new WordIndex(lengths, len -> readGroup(buffer, len), complete);
+    }
+
+    /** Copies the words and bitsets of one length out of the buffer. */
+    private static WordIndex.Group readGroup(ByteBuffer buffer, int len){
+        int entry = HEADER_SIZE + len * LENGTH_ENTRY_SIZE;
+        int count = buffer.getInt(entry);
+        int wordsOffset = (int) buffer.getLong(entry + 8);
+        int bitsOffset = (int) buffer.getLong(entry + 16);
+
+        byte[] records = new byte[count * len];
+        buffer.get(wordsOffset, records);
+
+        int numLongs = (count + 63) >>> 6;
+        LongBuffer columns = buffer.slice(bitsOffset, len * ALPHABET_SIZE * numLongs * 8).asLongBuffer();
+        long[][] bits = new long[len * ALPHABET_SIZE][];
+        for (int k = 0; k < bits.length; k++){
+            bits[k] = new long[numLongs];
+            columns.get(bits[k]);
+        }
+        return new WordIndex.Group(count, records, bits);
+    }
+
+    /** Whether the buffer starts like a compiled dictionary. */
+    public static boolean isCompiled(ByteBuffer buffer){
+        return buffer.limit() >= HEADER_SIZE && buffer.getInt(0) == MAGIC;
+    }
+
+    /** The word list as it was before compiling, newline separated. */
+    public CharSequence getText(){
+        return text;
+    }
+
+    public WordIndex getIndex(){
+        return index;
+    }
+
+    /** Indexes a word list and writes both to a compiled dictionary. */
+    public static void compile(String textFile, String dictionaryFile) throws IOException {
+        byte[] text = Files.readAllBytes(Paths.get(textFile));
+        WordIndex index = new WordIndex(new ByteCharSequence(ByteBuffer.wrap(text)));
+        int lengths = index.lengths();
+
+        // lay everything out first, so the header can point at it
+        long[] wordsOffset = new long[lengths];
+        long[] bitsOffset = new long[lengths];
+        long offset = HEADER_SIZE + (long) lengths * LENGTH_ENTRY_SIZE + text.length;
+        for (int len = 0; len < lengths; len++){
+            wordsOffset[len] = offset;
+            offset += (long) index.count(len) * len;
+            offset = (offset + 7) & ~7L;
+            bitsOffset[len] = offset;
+            offset += (long) len * ALPHABET_SIZE * ((index.count(len) + 63) >>> 6) * 8;
+        }
+        if (offset > Integer.MAX_VALUE){ throw new IOException("Dictionary too large to map"); }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dictionaryFile)))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(index.isComplete() ? COMPLETE : 0);
+            out.writeInt(lengths);
+            out.writeLong(HEADER_SIZE + (long) lengths * LENGTH_ENTRY_SIZE);
+            out.writeLong(text.length);
+            for (int len = 0; len < lengths; len++){
+                out.writeInt(index.count(len));
+                out.writeInt(0);
+                out.writeLong(wordsOffset[len]);
+                out.writeLong(bitsOffset[len]);
+            }
+            out.write(text);
+            for (int len = 0; len < lengths; len++){
+                out.write(index.letters(len), 0, index.count(len) * len);
+                while (out.size() < bitsOffset[len]){ out.writeByte(0); }
+                for (int pos = 0; pos < len; pos++){
+                    for (char c = 'a'; c <= 'z'; c++){
+                        for (long block : index.column(len, pos, c)){ out.writeLong(block); }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Maps a file read-only. The mapping outlives the channel. */
+    static ByteBuffer map(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)){
+            if (channel.size() > Integer.MAX_VALUE){ throw new IOException(filename + " is too large to map"); }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static void main(String args[]){
+        if (args.length != 2){
+            System.err.println("Usage: java DictionaryFile words.txt words.dict");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            compile(args[0], args[1]);
+            System.out.println(String.format("Compiled %s to %s in %.1f ms",
+                    args[0], args[1], (System.nanoTime() - start) / 1e6));
+        }catch (IOException e){
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+import java.util.Random;
+
+/**
+ * The live set of candidate words for one slot, stored as a bitset over the
+ * ids WordIndex gives the words of that length. Narrowing a domain is an AND
+ * against one of the index's (position, letter) columns, and the size is
+ * kept up to date so that choosing the most constrained slot is cheap.
+ *
+ * @author paul g
+ */
+public class Domain {
+
+    private final int length;   // word length, which picks the id space
+    private final long[] bits;
+    private int size;
+
+    public Domain(int length, long[] bits){
+        this.length = length;
+        this.bits = bits;
+        this.size = count(bits);
+    }
+
+    /** Copy constructor, used to save a domain before narrowing it. */
+    public Domain(Domain other){
+        this.length = other.length;
+        this.bits = other.bits.clone();
+        this.size = other.size;
+    }
+
+    /**
+     * Removes every word that isn't also in column.
+     *
+     * @return whether anything was removed
+     */
+    public boolean retain(long[] column){
+        int before = size;
+        size = 0;
+        for (int k = 0; k < bits.length; k++){
+            bits[k] &= column[k];
+            size += Long.bitCount(bits[k]);
+        }
+        return size != before;
+    }
+
+    /** Whether any word in this domain is also in column. */
+    public boolean intersects(long[] column){
+        for (int k = 0; k < bits.length; k++){
+            if ((bits[k] & column[k]) != 0){ return true; }
+        }
+        return false;
+    }
+
+    public boolean contains(int id){
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /** @return the first id at or after from, or -1 if there are none */
+    public int nextId(int from){
+        int k = from >>> 6;
+        if (k >= bits.length){ return -1; }
+        long block = bits[k] & (-1L << from);
+        while (true){
+            if (block != 0){ return (k << 6) + Long.numberOfTrailingZeros(block); }
+            if (++k == bits.length){ return -1; }
+            block = bits[k];
+        }
+    }
+
+    /** A cursor over the words in this domain, which doesn't change it. */
+    public WordCursor cursor(WordIndex index, Random order){
+        return new WordCursor(bits.clone(), id -> index.getWord(length, id), order, 0);
+    }
+
+    public int getLength(){
+        return length;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    private static int count(long[] bits){
+        int n = 0;
+        for (long block : bits){ n += Long.bitCount(block); }
+        return n;
+    }
+
+}
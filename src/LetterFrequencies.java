@@ -0,0 +1,88 @@
+import java.util.Collection;
+
+/**
+ * How many words of each length have each letter at each position, read
+ * off a WordIndex. Board uses these to guess how many options a candidate
+ * word leaves the slots crossing it, without touching their domains.
+ *
+ * Each length's table is counted the first time it is asked for, from the
+ * index's (position, letter) columns, so a length the board never uses is
+ * never counted, nor loaded from a compiled dictionary.
+ *
+ * When words are added to or removed from the dictionary, with() adjusts
+ * the counts of just the lengths they have, and shares the rest.
+ *
+ * @author paul g
+ */
+public class LetterFrequencies {
+
+    private static final int ALPHABET_SIZE = 26;
+
+    private final WordIndex index;
+    private final int[][] counts;       // counts[length][pos * 26 + letter]
+
+    public LetterFrequencies(WordIndex index){
+        this.index = index;
+        this.counts = new int[index.lengths()][];
+    }
+
+    /**
+     * The counts for index, which is this one's index with the given words
+     * added and removed. Lengths counted already are adjusted by one per
+     * letter of each word rather than counted again.
+     */
+    public LetterFrequencies with(WordIndex index, Collection<String> added, Collection<String> removed){
+        LetterFrequencies rtn = new LetterFrequencies(index);
+        System.arraycopy(counts, 0, rtn.counts, 0, Math.min(counts.length, rtn.counts.length));
+        boolean[] copied = new boolean[rtn.counts.length];
+        for (String word : added){ rtn.adjust(word, 1, copied); }
+        for (String word : removed){ rtn.adjust(word, -1, copied); }
+        return rtn;
+    }
+
+    private void adjust(String word, int delta, boolean[] copied){
+        int length = word.length();
+        if (length >= counts.length || counts[length] == null){ return; } // counted when asked for
+        if (!copied[length]){
+            counts[length] = counts[length].clone();
+            copied[length] = true;
+        }
+        for (int pos = 0; pos < length; pos++){
+            counts[length][pos * ALPHABET_SIZE + (word.charAt(pos) - 'a')] += delta;
+        }
+    }
+
+    /** @return how many words of the given length have c at pos */
+    public int count(int length, int pos, char c){
+        if (length >= counts.length || c < 'a' || c > 'z'){ return 0; }
+        return table(length)[pos * ALPHABET_SIZE + (c - 'a')];
+    }
+
+    /** The counts of every letter at one position, indexed by letter. */
+    public int[] atPosition(int length, int pos){
+        int[] rtn = new int[ALPHABET_SIZE];
+        if (length >= counts.length){ return rtn; }
+        System.arraycopy(table(length), pos * ALPHABET_SIZE, rtn, 0, ALPHABET_SIZE);
+        return rtn;
+    }
+
+    /**
+     * One length's table, counting it if need be. As in WordIndex, threads
+     * racing to count the same length each count an identical copy.
+     */
+    private int[] table(int length){
+        int[] table = counts[length];
+        if (table == null){
+            table = new int[length * ALPHABET_SIZE];
+            for (int k = 0; k < table.length; k++){
+                char c = (char) ('a' + k % ALPHABET_SIZE);
+                for (long block : index.column(length, k / ALPHABET_SIZE, c)){
+                    table[k] += Long.bitCount(block);
+                }
+            }
+            counts[length] = table;
+        }
+        return table;
+    }
+
+}
@@ -0,0 +1,85 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded map that evicts its least recently used entry once it is
+ * full, and counts hits, misses and evictions so that the capacity can be
+ * tuned against a real workload.
+ *
+ * All methods are synchronized, so one cache can be shared by every Board
+ * that uses the same WordFinder.
+ *
+ * @author paul g
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(int capacity){
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest){
+                if (size() > LruCache.this.capacity){
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** @return the cached value, or null (counted as a miss) */
+    public synchronized V get(K key){
+        V value = entries.get(key);
+        if (value == null){
+            misses++;
+        }else{
+            hits++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value){
+        if (capacity > 0){
+            entries.put(key, value);
+        }
+    }
+
+    /** Changes the capacity, evicting the oldest entries if it shrinks. */
+    public synchronized void setCapacity(int capacity){
+        this.capacity = capacity;
+        while (entries.size() > capacity){
+            K eldest = entries.keySet().iterator().next();
+            entries.remove(eldest);
+            evictions++;
+        }
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    public synchronized long getEvictions(){
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString(){
+        return String.format("%d/%d entries, %d hits, %d misses, %d evictions",
+                entries.size(), capacity, hits, misses, evictions);
+    }
+
+}
@@ -1,3 +1,7 @@
+import java.io.File;
+import java.util.Iterator;
+import javax.management.JMException;
+
 /**
  * Driver for CrossWorder.
  *
@@ -5,21 +9,186 @@
  */
 public class Main {
 
+    private static final String USAGE =
+            "Usage: java CrossWorder [-backend regex|index|trie|scan] [-dictionary file] [-cache n] [-fc] [-ac] [-cbj] [-lcv] [-tt n] [-timeout s] [-nodes n] [-threads n] [-portfolio n] [-solutions n] [board file]";
+
     public static void main(String args[]){
-        if (args.length > 0){
-            System.err.println("Usage: java CrossWorder");
+        String filename = "resources/board0.txt";
+        WordFinder.Backend backend = WordFinder.Backend.INDEX;
+        String dictionary = null;     // a word list or a compiled one
+        int cacheSize = -1;
+        boolean forwardChecking = false;
+        boolean arcConsistency = false;
+        boolean backjumping = false;
+        boolean leastConstraining = false;
+        int threads = 1;
+        int portfolio = 0;
+        int solutions = 0;
+        int transpositions = 0;
+        long timeoutMillis = 0;
+        long nodeLimit = 0;
+
+        for (int i = 0; i < args.length; i++){
+            if (args[i].equals("-backend") && i + 1 < args.length){
+                try {
+                    backend = WordFinder.Backend.valueOf(args[++i].toUpperCase());
+                }catch (IllegalArgumentException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-dictionary") && i + 1 < args.length){
+                dictionary = args[++i];
+            }else if (args[i].equals("-cache") && i + 1 < args.length){
+                try {
+                    cacheSize = Integer.parseInt(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-threads") && i + 1 < args.length){
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-portfolio") && i + 1 < args.length){
+                try {
+                    portfolio = Integer.parseInt(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-tt") && i + 1 < args.length){
+                try {
+                    transpositions = Integer.parseInt(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-timeout") && i + 1 < args.length){
+                try {
+                    timeoutMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-nodes") && i + 1 < args.length){
+                try {
+                    nodeLimit = Long.parseLong(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-solutions") && i + 1 < args.length){
+                try {
+                    solutions = Integer.parseInt(args[++i]);
+                }catch (NumberFormatException e){
+                    System.err.println(USAGE);
+                    return;
+                }
+            }else if (args[i].equals("-fc")){
+                forwardChecking = true;
+            }else if (args[i].equals("-ac")){
+                arcConsistency = true;
+            }else if (args[i].equals("-cbj")){
+                backjumping = true;
+            }else if (args[i].equals("-lcv")){
+                leastConstraining = true;
+            }else if (args[i].startsWith("-")){
+                System.err.println(USAGE);
+                return;
+            }else{
+                filename = args[i];
+            }
         }
 
-        String filename = "resources/board0.txt";
+        if (!new File(filename).isFile()){
+            System.err.println("No such board: " + filename);
+            return;
+        }
+
+		System.out.println(String.format("Loading dictionary (%s)...", backend));
+        WordFinder wordFinder = (dictionary == null)
+                ? new WordFinder(backend) : new WordFinder(dictionary, backend);
+        if (cacheSize >= 0){ wordFinder.setCacheCapacity(cacheSize); }
 
-        Board b = new Board(filename);
+        if (portfolio > 0){
+            Portfolio runs = new Portfolio(filename, wordFinder);
+            runs.addDefaults(portfolio, System.nanoTime());
+            System.out.println(String.format("Racing %d runs...", portfolio));
+            Portfolio.Result winner;
+            try {
+                winner = runs.solve();
+            }catch (InterruptedException e){
+                System.err.println("Interrupted.");
+                return;
+            }
+            System.out.println("RESULT:");
+            Board solved = winner.getBoard();
+            System.out.println(solved == null ? "NO SOLUTION" : solved.boardToString());
+            System.out.println(winner);
+            System.out.println("...Finished.");
+            return;
+        }
+
+        Board b = new Board(filename, wordFinder);
 		System.out.println("Initializing board...");
         b.init();
+        b.setForwardChecking(forwardChecking);
+        b.setArcConsistency(arcConsistency);
+        b.setBackjumping(backjumping);
+        b.setLeastConstraining(leastConstraining);
+        b.setTranspositionCapacity(transpositions);
+        b.setThreads(threads);
+        b.setTimeLimit(timeoutMillis);
+        b.setNodeLimit(nodeLimit);
+        if (threads > 1){ b.setPrompting(false); }
+        try {
+            // for watching a long solve with jconsole or similar
+            b.getStats().register(filename);
+            wordFinder.getStats().register(filename);
+        }catch (JMException e){
+            System.err.println("WARNING: Could not register with JMX: " + e.getMessage());
+        }
 		System.out.println("Starting to backtrack...");
-        b.backtrack();
+        if (solutions > 0){
+            long start = System.nanoTime();
+            int found = 0;
+            Iterator<Board> fills = b.solutions(solutions);
+            while (fills.hasNext()){
+                System.out.println(String.format("SOLUTION %d (%.1f ms):", ++found,
+                        (System.nanoTime() - start) / 1e6));
+                System.out.println(fills.next().boardToString());
+            }
+            System.out.println(String.format("%d SOLUTIONS", found));
+        }else{
+            Board result = b.backtrack();
 
-		System.out.println("RESULT:");
-		System.out.println(b.boardToString());
+            System.out.println("RESULT:");
+            if (result != null){
+                System.out.println(result.boardToString());
+            }else if (b.isStopped()){
+                Board partial = b.getBestPartial();
+                System.out.println(String.format("STOPPED EARLY, BEST PARTIAL FILL (%d of %d slots):",
+                        partial.getCompleteSlots(), partial.getSlotCount()));
+                System.out.println(partial.boardToString());
+            }else{
+                System.out.println("NO SOLUTION");
+            }
+        }
+        System.out.println("Search: " + b.getStats());
+        System.out.println("Queries: " + wordFinder.getStats());
+        System.out.println("Query cache: " + wordFinder.getResultCache());
+        if (arcConsistency){
+            System.out.println("Propagation: " + b.getPropagationStats());
+        }
+        if (backjumping){
+            System.out.println("Backjumping: " + b.getBackjumpStats());
+        }
+        if (b.getTranspositions() != null){
+            System.out.println("Transpositions: " + b.getTranspositions());
+        }
         System.out.println("...Finished.");
     }
 }
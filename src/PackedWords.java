@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Brute-force scan over packed words. Words are grouped by length, and each
+ * one is packed five bits a letter, twelve letters to a long, into one long
+ * array per twelve-letter chunk, so that a group is a few contiguous runs
+ * of primitives. A slot pattern becomes a mask over its fixed letters and
+ * the value they must have there, and every word of its length is tested
+ * against them in one pass, several words per instruction when the
+ * ScanKernel is the SIMD one.
+ *
+ * A scan reads every word of the length, whatever the pattern, so it does
+ * best where the index does worst: short patterns with few fixed letters,
+ * where the index ANDs columns only to keep most of the words anyway.
+ *
+ * Only lowercase a-z words are packed; anything else marks the matcher
+ * incomplete, as in WordIndex.
+ *
+ * @author paul g
+ */
+public class PackedWords implements WordMatcher {
+
+    private static final int BITS_PER_LETTER = 5;
+    private static final int LETTERS_PER_LONG = 12;
+    private static final long LETTER_MASK = (1L << BITS_PER_LETTER) - 1;
+
+    private final String[][] words;     // by length, then id, in file order
+    private final long[][][] packed;    // packed[length][chunk][id]
+    private final ScanKernel kernel;
+    private boolean complete = true;
+
+    /** Packs newline separated words, scanning with the best kernel there is. */
+    public PackedWords(CharSequence contents){
+        this(contents, ScanKernel.load());
+    }
+
+    PackedWords(CharSequence contents, ScanKernel kernel){
+        this.kernel = kernel;
+        ArrayList<ArrayList<String>> byLength = new ArrayList<>();
+        for (String word : WordMatcher.splitLines(contents)){
+            if (!WordMatcher.isIndexable(word)){
+                complete = false;
+                continue;
+            }
+            while (byLength.size() <= word.length()){ byLength.add(new ArrayList<>()); }
+            byLength.get(word.length()).add(word);
+        }
+
+        words = new String[byLength.size()][];
+        packed = new long[byLength.size()][][];
+        for (int len = 0; len < byLength.size(); len++){
+            words[len] = byLength.get(len).toArray(new String[0]);
+            packed[len] = new long[chunks(len)][words[len].length];
+            for (int id = 0; id < words[len].length; id++){
+                String word = words[len][id];
+                for (int pos = 0; pos < len; pos++){
+                    packed[len][pos / LETTERS_PER_LONG][id] |= (long) (word.charAt(pos) - 'a') << shift(pos);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isComplete(){
+        return complete;
+    }
+
+    /** Finds all the words matching a slot pattern, in file order. */
+    @Override
+    public ArrayList<String> findMatches(String pattern){
+        ArrayList<String> matches = new ArrayList<>();
+        int len = pattern.length();
+        if (len >= words.length){ return matches; }
+        long[] hits = matchBits(pattern);
+        for (int k = 0; k < hits.length; k++){
+            long block = hits[k];
+            while (block != 0){
+                matches.add(words[len][(k << 6) + Long.numberOfTrailingZeros(block)]);
+                block &= block - 1;
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public WordCursor cursor(String pattern, Random order, int limit){
+        int len = pattern.length();
+        if (len >= words.length){ return new WordCursor(new long[0], null, order, limit); }
+        String[] group = words[len];
+        return new WordCursor(matchBits(pattern), id -> group[id], order, limit);
+    }
+
+    /** Whether the SIMD kernel is the one scanning. */
+    public boolean isVectorized(){
+        return kernel != ScanKernel.SCALAR;
+    }
+
+    /**
+     * Scans each chunk that has a fixed letter in it, ANDing their hits;
+     * a pattern with no fixed letters matches the whole group unscanned.
+     */
+    private long[] matchBits(String pattern){
+        int len = pattern.length();
+        int n = words[len].length;
+        long[] hits = null;
+        for (int chunk = 0; chunk < chunks(len); chunk++){
+            long mask = 0;
+            long value = 0;
+            int end = Math.min(len, (chunk + 1) * LETTERS_PER_LONG);
+            for (int pos = chunk * LETTERS_PER_LONG; pos < end; pos++){
+                char c = pattern.charAt(pos);
+                if (c == WILDCARD){ continue; }
+                mask |= LETTER_MASK << shift(pos);
+                value |= (long) (c - 'a') << shift(pos);
+            }
+            if (mask == 0){ continue; }
+            long[] chunkHits = new long[(n + 63) >>> 6];
+            kernel.scan(packed[len][chunk], mask, value, chunkHits);
+            if (hits == null){
+                hits = chunkHits;
+            }else{
+                for (int k = 0; k < hits.length; k++){ hits[k] &= chunkHits[k]; }
+            }
+        }
+        if (hits == null){
+            hits = new long[(n + 63) >>> 6];
+            for (int id = 0; id < n; id++){ hits[id >>> 6] |= 1L << id; }
+        }
+        return hits;
+    }
+
+    private static int chunks(int length){
+        return (length + LETTERS_PER_LONG - 1) / LETTERS_PER_LONG;
+    }
+
+    private static int shift(int pos){
+        return (pos % LETTERS_PER_LONG) * BITS_PER_LETTER;
+    }
+
+}
@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs several independent solves of the same board at once, each on its
+ * own thread with its own seed and search settings, and keeps whichever
+ * finishes first. Backtracking times on one board vary wildly from seed to
+ * seed, so racing a handful of runs usually beats waiting on any single
+ * one of them.
+ *
+ * @author paul g
+ */
+public class Portfolio {
+
+    private final String filename;
+    private final WordFinder wordFinder;
+    private final ArrayList<Config> configs = new ArrayList<>();
+
+    public Portfolio(String filename, WordFinder wordFinder){
+        this.filename = filename;
+        this.wordFinder = wordFinder;
+    }
+
+    /** Adds one run to the portfolio. */
+    public void add(Config config){
+        configs.add(config);
+    }
+
+    /**
+     * Adds n runs with seeds drawn from seed, alternating between plain
+     * forward checking and arc consistency.
+     */
+    public void addDefaults(int n, long seed){
+        Random seeds = new Random(seed);
+        for (int i = 0; i < n; i++){
+            add(new Config(seeds.nextLong(), true, i % 2 == 1));
+        }
+    }
+
+    /**
+     * Starts every run, waits for the first one to finish, and cancels the
+     * rest.
+     *
+     * @return the winning run, whose board is null if it proved there is
+     *      no solution
+     */
+    public Result solve() throws InterruptedException {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        ArrayList<Board> boards = new ArrayList<>();
+        for (Config config : configs){
+            Board b = new Board(filename, wordFinder);
+            b.setPrompting(false);
+            b.init();
+            b.setSeed(config.seed);
+            b.setForwardChecking(config.forwardChecking);
+            b.setArcConsistency(config.arcConsistency);
+            b.setCancellation(cancelled);
+            boards.add(b);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(configs.size());
+        ExecutorCompletionService<Result> runs = new ExecutorCompletionService<>(pool);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < configs.size(); i++){
+                final Config config = configs.get(i);
+                final Board b = boards.get(i);
+                runs.submit(() -> new Result(b.backtrack(), config, System.nanoTime() - start));
+            }
+            return runs.take().get();
+        }catch (ExecutionException e){
+            throw new IllegalStateException("Solver run failed", e.getCause());
+        }finally {
+            cancelled.set(true);
+            pool.shutdownNow();
+        }
+    }
+
+    /** The seed and search settings of one run. */
+    public static class Config {
+        final long seed;
+        final boolean forwardChecking;
+        final boolean arcConsistency;
+
+        public Config(long seed, boolean forwardChecking, boolean arcConsistency){
+            this.seed = seed;
+            this.forwardChecking = forwardChecking;
+            this.arcConsistency = arcConsistency;
+        }
+
+        @Override
+        public String toString(){
+            String mode = arcConsistency ? "ac" : forwardChecking ? "fc" : "plain";
+            return String.format("seed=%d mode=%s", seed, mode);
+        }
+    }
+
+    /** The board found by the first run to finish, and which run it was. */
+    public static class Result {
+        final Board board;
+        final Config winner;
+        final long nanos;
+
+        Result(Board board, Config winner, long nanos){
+            this.board = board;
+            this.winner = winner;
+            this.nanos = nanos;
+        }
+
+        public Board getBoard(){
+            return board;
+        }
+
+        public Config getWinner(){
+            return winner;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("%s won after %.1f ms", winner, nanos / 1e6);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one WordFinder.lookup(), cached or not.
+ *
+ * @author paul g
+ */
+@Name("crossworder.Query")
+@Label("Dictionary Query")
+@Category("CrossWorder")
+@StackTrace(false)
+@Description("A pattern looked up in the dictionary")
+public class QueryEvent extends Event {
+
+    @Label("Pattern")
+    String pattern;
+
+    @Label("Matches")
+    int matches;
+
+    @Label("Cached")
+    boolean cached;
+
+}
@@ -0,0 +1,80 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Query counts and latencies for one WordFinder. Every board solved with
+ * the same WordFinder queries it, often from several threads at once, so
+ * the counters are adders rather than plain fields.
+ *
+ * @author paul g
+ */
+public class QueryStats implements QueryStatsMBean {
+
+    private final LruCache<?, ?> cache;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    QueryStats(LruCache<?, ?> cache){
+        this.cache = cache;
+    }
+
+    /** Counts one query that took so long, cached or not. */
+    void query(long elapsed){
+        queries.increment();
+        nanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+    }
+
+    /**
+     * Makes these counters visible over JMX as
+     * crossworder:type=QueryStats,name=name.
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("crossworder:type=QueryStats,name=" + ObjectName.quote(name)));
+    }
+
+    @Override
+    public long getQueries(){
+        return queries.sum();
+    }
+
+    @Override
+    public double getMeanQueryMicros(){
+        long n = queries.sum();
+        return (n == 0) ? 0 : nanos.sum() / 1e3 / n;
+    }
+
+    @Override
+    public double getMaxQueryMicros(){
+        return maxNanos.get() / 1e3;
+    }
+
+    @Override
+    public long getCacheHits(){
+        return cache.getHits();
+    }
+
+    @Override
+    public long getCacheMisses(){
+        return cache.getMisses();
+    }
+
+    @Override
+    public void reset(){
+        queries.reset();
+        nanos.reset();
+        maxNanos.reset();
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%d queries, %.1f us mean, %.1f us max",
+                getQueries(), getMeanQueryMicros(), getMaxQueryMicros());
+    }
+
+}
@@ -0,0 +1,20 @@
+/**
+ * JMX view of a WordFinder's queries, registered by QueryStats.register().
+ *
+ * @author paul g
+ */
+public interface QueryStatsMBean {
+
+    long getQueries();
+
+    double getMeanQueryMicros();
+
+    double getMaxQueryMicros();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    void reset();
+
+}
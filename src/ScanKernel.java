@@ -0,0 +1,36 @@
+/**
+ * The inner loop of a PackedWords scan: tests every packed word against a
+ * mask and value at once. The scalar kernel here always works; a SIMD one,
+ * VectorScanKernel, is used instead when it was compiled and the JVM was
+ * started with --add-modules jdk.incubator.vector.
+ *
+ * @author paul g
+ */
+interface ScanKernel {
+
+    /**
+     * Sets bit i of hits for every word i with (words[i] & mask) == value.
+     * Bits already set are left set.
+     */
+    void scan(long[] words, long mask, long value, long[] hits);
+
+    /** One word at a time. */
+    ScanKernel SCALAR = (words, mask, value, hits) -> {
+        for (int i = 0; i < words.length; i++){
+            if ((words[i] & mask) == value){ hits[i >>> 6] |= 1L << i; }
+        }
+    };
+
+    /**
+     * The SIMD kernel if it can be loaded, the scalar one if not. It lives
+     * outside src/ and is only looked up by name, so that the rest of the
+     * solver builds and runs without the incubator module.
+     */
+    static ScanKernel load(){
+        try {
+            return (ScanKernel) Class.forName("VectorScanKernel").getDeclaredConstructor().newInstance();
+        }catch (ReflectiveOperationException | LinkageError e){
+            return SCALAR;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one node of the search. Its duration covers
+ * choosing the slot and listing its candidates. Stack traces are off,
+ * since there is one of these per node and the stack is just the search
+ * recursing.
+ *
+ * @author paul g
+ */
+@Name("crossworder.SearchNode")
+@Label("Search Node")
+@Category("CrossWorder")
+@StackTrace(false)
+@Description("A slot chosen by the backtracker, and how many words it could take")
+public class SearchNodeEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Row")
+    int row;
+
+    @Label("Column")
+    int col;
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Candidates")
+    int candidates;
+
+}
@@ -0,0 +1,119 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and phase timers for one Board's search: how many nodes it
+ * expanded and how deep it went, how many candidates each node had to
+ * choose from, and where the time went.
+ *
+ * The counters are plain fields, bumped by the one thread searching the
+ * board, so they cost next to nothing on the hot path. A parallel search
+ * gives every copy of the board its own and adds them into the parent's as
+ * each task finishes. Readers on other threads, such as a JMX client,
+ * may see values that lag a little behind.
+ *
+ * @author paul g
+ */
+public class SearchStats implements SearchStatsMBean {
+
+    long nodes;             // slots chosen to branch on
+    long backtracks;        // words rolled back
+    int maxDepth;           // deepest memoryStack seen
+    long candidates;        // summed over every node
+    long goalChecks;
+    long chooseNanos;       // getMinimumRemaining() / getMostConstrained()
+    long orderNanos;        // least-constraining-value ordering
+    long insertNanos;       // insertValue(), including any propagation
+    long rollbackNanos;
+
+    /** Counts one node, at the given depth, with so many candidates. */
+    void node(int depth, int candidates){
+        nodes++;
+        this.candidates += candidates;
+        if (depth > maxDepth){ maxDepth = depth; }
+    }
+
+    /** Adds the counters of a parallel task's copy of the board. */
+    synchronized void add(SearchStats other){
+        nodes += other.nodes;
+        backtracks += other.backtracks;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        candidates += other.candidates;
+        goalChecks += other.goalChecks;
+        chooseNanos += other.chooseNanos;
+        orderNanos += other.orderNanos;
+        insertNanos += other.insertNanos;
+        rollbackNanos += other.rollbackNanos;
+    }
+
+    /**
+     * Makes these counters visible over JMX as
+     * crossworder:type=SearchStats,name=name.
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("crossworder:type=SearchStats,name=" + ObjectName.quote(name)));
+    }
+
+    @Override
+    public long getNodes(){
+        return nodes;
+    }
+
+    @Override
+    public long getBacktracks(){
+        return backtracks;
+    }
+
+    @Override
+    public int getMaxDepth(){
+        return maxDepth;
+    }
+
+    @Override
+    public double getMeanCandidates(){
+        return (nodes == 0) ? 0 : (double) candidates / nodes;
+    }
+
+    @Override
+    public long getGoalChecks(){
+        return goalChecks;
+    }
+
+    @Override
+    public double getChooseMillis(){
+        return chooseNanos / 1e6;
+    }
+
+    @Override
+    public double getOrderMillis(){
+        return orderNanos / 1e6;
+    }
+
+    @Override
+    public double getInsertMillis(){
+        return insertNanos / 1e6;
+    }
+
+    @Override
+    public double getRollbackMillis(){
+        return rollbackNanos / 1e6;
+    }
+
+    @Override
+    public synchronized void reset(){
+        nodes = backtracks = candidates = goalChecks = 0;
+        chooseNanos = orderNanos = insertNanos = rollbackNanos = 0;
+        maxDepth = 0;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%d nodes, %d backtracks, max depth %d, %.1f candidates/node, %d goal checks; "
+                        + "choose %.1f ms, order %.1f ms, insert %.1f ms, rollback %.1f ms",
+                nodes, backtracks, maxDepth, getMeanCandidates(), goalChecks,
+                getChooseMillis(), getOrderMillis(), getInsertMillis(), getRollbackMillis());
+    }
+
+}
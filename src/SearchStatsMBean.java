@@ -0,0 +1,28 @@
+/**
+ * JMX view of a running search, registered by SearchStats.register().
+ *
+ * @author paul g
+ */
+public interface SearchStatsMBean {
+
+    long getNodes();
+
+    long getBacktracks();
+
+    int getMaxDepth();
+
+    double getMeanCandidates();
+
+    long getGoalChecks();
+
+    double getChooseMillis();
+
+    double getOrderMillis();
+
+    double getInsertMillis();
+
+    double getRollbackMillis();
+
+    void reset();
+
+}
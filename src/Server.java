@@ -0,0 +1,267 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves boards sent over HTTP, keeping one dictionary loaded, and the JIT
+ * warmed up, for as long as it runs. A board is POSTed to /solve as the
+ * text of a board file, and the answer is the line of JSON that Batch would
+ * have written for it, with the milliseconds it waited for its turn added.
+ *
+ * Every request gets a Board of its own, so requests share nothing but the
+ * dictionary. At most parallelism boards are searched at once, and at most
+ * queue more wait for their turn; any request beyond that is turned away at
+ * once with a 503, rather than left to pile up.
+ *
+ * The server only listens on the loopback address. Each board gets
+ * -timeout seconds, 30 unless given, so that no board holds a place for
+ * good.
+ *
+ * Usage: java Server [-port n] [-backend regex|index|trie|scan] [-dictionary file]
+ *                    [-theme file] [-banned file] [-ac] [-cbj] [-lcv] [-timeout s]
+ *                    [-parallelism n] [-queue n]
+ *
+ * @author paul g
+ */
+public class Server {
+
+    private static final String USAGE =
+            "Usage: java Server [-port n] [-backend regex|index|trie|scan] [-dictionary file] [-theme file] [-banned file] [-ac] [-cbj] [-lcv] [-timeout s] [-parallelism n] [-queue n]";
+    private static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BOARD_BYTES = 1 << 20;
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+    private static final int SPARE_THREADS = 2;    // to turn requests away while every place is taken
+
+    private final WordFinder wordFinder;
+    private final Batch solver;         // for its settings, and how it solves
+    private final int capacity;         // parallelism plus queue
+    private final Semaphore admitted;   // running or waiting to run
+    private final Semaphore running;
+    private final AtomicInteger rejected = new AtomicInteger();
+    private HttpServer http;
+    private ExecutorService executor;
+
+    /**
+     * @param solver: solves each board, with whatever settings it has
+     * @param parallelism: how many boards may be searched at once
+     * @param queue: how many more may wait for their turn
+     */
+    public Server(WordFinder wordFinder, Batch solver, int parallelism, int queue){
+        this.wordFinder = wordFinder;
+        this.solver = solver;
+        this.capacity = parallelism + queue;
+        this.admitted = new Semaphore(capacity);
+        this.running = new Semaphore(parallelism);
+    }
+
+    /**
+     * Builds the index, then starts listening.
+     *
+     * @param port: the port, or 0 for any free one; see getPort()
+     */
+    public void start(int port) throws IOException {
+        wordFinder.getIndex(); // before the first request, not during it
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // a thread per admitted request, while it sends its board, waits and
+        // runs, and a couple more to turn the rest away; connections beyond
+        // that wait for a thread without holding one
+        executor = Executors.newFixedThreadPool(capacity + SPARE_THREADS, r -> {
+            Thread t = new Thread(r, "solve");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(executor);
+        http.createContext("/solve", this::handle);
+        http.start();
+    }
+
+    /**
+     * Stops listening, giving requests being solved a second to finish, and
+     * stops watching the dictionary's files.
+     */
+    public void stop(){
+        http.stop(1);
+        executor.shutdownNow();
+        wordFinder.stopWatching();
+    }
+
+    public int getPort(){
+        return http.getAddress().getPort();
+    }
+
+    /** How many requests are being solved or waiting to be. */
+    public int getPending(){
+        return capacity - admitted.availablePermits();
+    }
+
+    /** How many requests have been turned away because the queue was full. */
+    public int getRejected(){
+        return rejected.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")){
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, error("POST a board"));
+                return;
+            }
+            // admitted before the board is read, so that slow senders take
+            // up places too
+            if (!admitted.tryAcquire()){
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+                respond(exchange, 503, error("too many requests"));
+                return;
+            }
+            int code = 200;
+            String json;
+            try {
+                byte[] body = readBody(exchange.getRequestBody());
+                if (body == null){
+                    code = 413;
+                    json = error("board too large");
+                }else if (body.length == 0){
+                    code = 400;
+                    json = error("no board");
+                }else{
+                    json = solve(body);
+                }
+            }finally {
+                admitted.release(); // before the client hears back, so it can go again
+            }
+            respond(exchange, code, json);
+        }catch (InterruptedException e){
+            respond(exchange, 503, error("shutting down"));
+        }finally {
+            exchange.close();
+        }
+    }
+
+    /** Waits for a turn, then solves a board as Batch would. */
+    private String solve(byte[] body) throws InterruptedException {
+        long start = System.nanoTime();
+        running.acquire();
+        try {
+            StringBuilder json = new StringBuilder("{\"file\":\"request\"");
+            json.append(String.format(Locale.ROOT, ",\"waitMillis\":%.3f", (System.nanoTime() - start) / 1e6));
+            Board b = new Board("request", new InputStreamReader(
+                    new ByteArrayInputStream(body), StandardCharsets.ISO_8859_1), wordFinder);
+            solver.solve(b, start, json);
+            return json.append('}').toString();
+        }finally {
+            running.release();
+        }
+    }
+
+    /** @return the body, or null if it is larger than any board should be */
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) >= 0){
+            bytes.write(buffer, 0, n);
+            if (bytes.size() > MAX_BOARD_BYTES){ return null; }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String error(String message){
+        return "{\"status\":\"error\",\"error\":" + Batch.quote(message) + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()){
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args){
+        WordFinder.Backend backend = WordFinder.Backend.INDEX;
+        String dictionary = null;
+        String theme = null;
+        String banned = null;
+        boolean arcConsistency = false;
+        boolean backjumping = false;
+        boolean leastConstraining = false;
+        long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        int port = DEFAULT_PORT;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int queue = -1;
+
+        try {
+            for (int i = 0; i < args.length; i++){
+                if (args[i].equals("-port") && i + 1 < args.length){
+                    port = Integer.parseInt(args[++i]);
+                }else if (args[i].equals("-backend") && i + 1 < args.length){
+                    backend = WordFinder.Backend.valueOf(args[++i].toUpperCase());
+                }else if (args[i].equals("-dictionary") && i + 1 < args.length){
+                    dictionary = args[++i];
+                }else if (args[i].equals("-theme") && i + 1 < args.length){
+                    theme = args[++i];
+                }else if (args[i].equals("-banned") && i + 1 < args.length){
+                    banned = args[++i];
+                }else if (args[i].equals("-timeout") && i + 1 < args.length){
+                    timeoutMillis = (long) (Double.parseDouble(args[++i]) * 1000);
+                }else if (args[i].equals("-parallelism") && i + 1 < args.length){
+                    parallelism = Integer.parseInt(args[++i]);
+                }else if (args[i].equals("-queue") && i + 1 < args.length){
+                    queue = Integer.parseInt(args[++i]);
+                }else if (args[i].equals("-ac")){
+                    arcConsistency = true;
+                }else if (args[i].equals("-cbj")){
+                    backjumping = true;
+                }else if (args[i].equals("-lcv")){
+                    leastConstraining = true;
+                }else{
+                    System.err.println(USAGE);
+                    return;
+                }
+            }
+        }catch (IllegalArgumentException e){
+            System.err.println(USAGE);
+            return;
+        }
+        if (queue < 0){ queue = 4 * parallelism; }
+        if (parallelism < 1 || timeoutMillis <= 0){
+            System.err.println(USAGE);
+            return;
+        }
+
+        WordFinder wordFinder = (dictionary == null)
+                ? new WordFinder(backend) : new WordFinder(dictionary, backend);
+        Batch solver = new Batch(wordFinder);
+        solver.setArcConsistency(arcConsistency);
+        solver.setBackjumping(backjumping);
+        solver.setLeastConstraining(leastConstraining);
+        solver.setTimeout(timeoutMillis);
+        Server server = new Server(wordFinder, solver, parallelism, queue);
+        try {
+            if (theme != null){ wordFinder.watch("theme", 1, false, theme); }
+            if (banned != null){ wordFinder.watch("banned", 1, true, banned); }
+            server.start(port);
+        }catch (IOException e){
+            System.err.println("Could not start: " + e.getMessage());
+            return;
+        }
+        System.err.println("Listening on http://localhost:" + server.getPort() + "/solve");
+    }
+}
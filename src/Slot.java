@@ -0,0 +1,49 @@
+/**
+ * One word slot on the board: a run of cells read ACROSS or DOWN, bounded
+ * by null spaces or the edge. Board builds its slots and links up their
+ * crossings once, in init(), and every solver stage reads cell ids from
+ * here instead of walking the grid. Slots never change after that, so all
+ * copies of a board share them.
+ *
+ * @author paul g
+ */
+public class Slot {
+
+    final int id;                   // position in Board's list of slots
+    final Board.Direction direction;
+    final int row;                  // where the word begins
+    final int col;
+    final int[] cells;              // cell ids, in reading order
+    Crossing[] crossings = new Crossing[0];
+
+    Slot(int id, Board.Direction direction, int row, int col, int[] cells){
+        this.id = id;
+        this.direction = direction;
+        this.row = row;
+        this.col = col;
+        this.cells = cells;
+    }
+
+    public int length(){
+        return cells.length;
+    }
+
+    @Override
+    public String toString(){
+        return String.format("(%d, %d) : %s", row, col, direction);
+    }
+
+    /** A cell this slot shares with a slot running the other way. */
+    public static class Crossing {
+        final int index;            // the cell's position in this slot
+        final Slot other;
+        final int otherIndex;       // and in the other slot
+
+        Crossing(int index, Slot other, int otherIndex){
+            this.index = index;
+            this.other = other;
+            this.otherIndex = otherIndex;
+        }
+    }
+
+}
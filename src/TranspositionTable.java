@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded table of partial fills that the search has already proved can't
+ * be completed, keyed by a Zobrist hash of what they leave to solve. The
+ * same dead end is often reached again, by another order of placement or
+ * after backtracking through an unrelated part of the board; with this,
+ * only the first visit searches it.
+ *
+ * Entries come in buckets of two. The first of a bucket holds whichever
+ * of its failures took the most nodes to prove, and the second the newest
+ * of the rest, so once the table is full the failures that are cheap to
+ * find again are the ones evicted.
+ *
+ * Only hashes are stored, not grids, so two grids whose 64-bit hashes
+ * collide are taken for the same one; the chance of that is small enough
+ * to ignore. A hash of 0 marks an empty entry, and is never stored.
+ *
+ * The copies of a board in a parallel search share its table, so entries
+ * live in atomic arrays and the counters are adders.
+ *
+ * @author paul g
+ */
+public class TranspositionTable {
+
+    private final int mask;                 // buckets - 1
+    private final AtomicLongArray hashes;   // two per bucket
+    private final AtomicLongArray costs;    // nodes it took to prove each one
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** @param capacity: the most entries to keep, rounded up to a power of two */
+    public TranspositionTable(int capacity){
+        int buckets = 1;
+        while (buckets * 2 < capacity){ buckets <<= 1; }
+        mask = buckets - 1;
+        hashes = new AtomicLongArray(2 * buckets);
+        costs = new AtomicLongArray(2 * buckets);
+    }
+
+    /** Whether the grid with this hash is a known dead end. */
+    public boolean contains(long hash){
+        probes.increment();
+        int i = index(hash);
+        if (hash != 0 && (hashes.get(i) == hash || hashes.get(i + 1) == hash)){
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the grid with this hash as a dead end.
+     *
+     * @param cost: how many nodes it took to find out
+     */
+    public void add(long hash, long cost){
+        if (hash == 0){ return; }
+        stores.increment();
+        int i = index(hash);
+        if (hashes.get(i + 1) != 0){ evictions.increment(); }
+        if (hashes.get(i) != 0 && cost < costs.get(i)){
+            set(i + 1, hash, cost);     // the first keeps its dearer one
+        }else{
+            set(i + 1, hashes.get(i), costs.get(i));
+            set(i, hash, cost);
+        }
+    }
+
+    private void set(int i, long hash, long cost){
+        hashes.set(i, hash);
+        costs.set(i, cost);
+    }
+
+    private int index(long hash){
+        return (int) ((hash ^ (hash >>> 32)) & mask) << 1;
+    }
+
+    public int getCapacity(){
+        return hashes.length();
+    }
+
+    public long getProbes(){
+        return probes.sum();
+    }
+
+    public long getHits(){
+        return hits.sum();
+    }
+
+    public double getHitRate(){
+        long n = probes.sum();
+        return (n == 0) ? 0 : (double) hits.sum() / n;
+    }
+
+    public long getStores(){
+        return stores.sum();
+    }
+
+    public long getEvictions(){
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString(){
+        return String.format("%d/%d entries, %d probes, %d hits (%.1f%%), %d evictions",
+                Math.min(getStores() - getEvictions(), getCapacity()), getCapacity(),
+                getProbes(), getHits(), 100 * getHitRate(), getEvictions());
+    }
+
+}
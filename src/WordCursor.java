@@ -0,0 +1,190 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * A lazy cursor over the words matching a query. The matches are held as a
+ * bitset of ids, and a word is only looked up by its id when the cursor
+ * reaches it, so a search that succeeds or backtracks after its first few
+ * candidates never builds the rest. Returning a word clears its bit, so
+ * taking the next one is never a list removal.
+ *
+ * The order is either id order or uniformly random, the same order as
+ * repeatedly drawing a random index from a list and removing it, or else
+ * one given up front by ordered().
+ *
+ * The search takes ids off the cursor with nextId(), and only makes a
+ * String of one when something needs to print it.
+ *
+ * @author paul g
+ */
+public class WordCursor implements Iterator<String> {
+
+    private final long[] places;        // the ones not returned yet
+    private final IntFunction<String> words;
+    private final Random order;         // null for id order
+    private final int[] sequence;       // the id at each place, or null if
+                                        // places are ids
+    private int count;                  // bits still set in places
+    private int left;                   // how many more the limit allows
+    private int from = 0;               // no place before this is left
+
+    /**
+     * @param ids: the matching ids, which the cursor consumes
+     * @param words: the word with each id
+     * @param order: where to draw a random order from, or null for id order
+     * @param limit: the most words to return, or 0 for all of them
+     */
+    public WordCursor(long[] ids, IntFunction<String> words, Random order, int limit){
+        this(ids, words, order, limit, null);
+    }
+
+    private WordCursor(long[] places, IntFunction<String> words, Random order, int limit, int[] sequence){
+        this.places = places;
+        this.words = words;
+        this.order = order;
+        this.sequence = sequence;
+        for (long block : places){ count += Long.bitCount(block); }
+        this.left = (limit > 0) ? limit : Integer.MAX_VALUE;
+    }
+
+    /** A cursor over a list, whose ids are its indices. */
+    public static WordCursor of(List<String> list, Random order, int limit){
+        long[] ids = new long[(list.size() + 63) >>> 6];
+        for (int i = 0; i < list.size(); i++){
+            ids[i >>> 6] |= 1L << i;
+        }
+        return new WordCursor(ids, list::get, order, limit);
+    }
+
+    /**
+     * A cursor over the same words as this one, returning the given ids in
+     * the given order.
+     */
+    public WordCursor ordered(int[] sequence){
+        long[] all = new long[(sequence.length + 63) >>> 6];
+        for (int i = 0; i < sequence.length; i++){
+            all[i >>> 6] |= 1L << i;
+        }
+        return new WordCursor(all, words, null, 0, sequence);
+    }
+
+    /** How many words are left to return. */
+    public int size(){
+        return Math.min(count, left);
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    @Override
+    public boolean hasNext(){
+        return size() > 0;
+    }
+
+    @Override
+    public String next(){
+        return words.apply(nextId());
+    }
+
+    /** next(), as the word's id, without looking the word up. */
+    public int nextId(){
+        if (!hasNext()){ throw new NoSuchElementException(); }
+        int place = (order == null) ? first() : select(order.nextInt(count));
+        places[place >>> 6] &= ~(1L << place);
+        count--;
+        left--;
+        return id(place);
+    }
+
+    /** The word with an id this cursor returns. */
+    public String word(int id){
+        return words.apply(id);
+    }
+
+    /**
+     * The words left, in order of their places, without returning them.
+     * Looks up every one, so it is only for when all of them are needed
+     * anyway.
+     */
+    public ArrayList<String> remaining(){
+        ArrayList<String> rtn = new ArrayList<>(count);
+        for (int place = nextPlace(0); place >= 0; place = nextPlace(place + 1)){
+            rtn.add(words.apply(id(place)));
+        }
+        return rtn;
+    }
+
+    /** The ids of remaining(), without looking up the words. */
+    public int[] remainingIds(){
+        int[] rtn = new int[count];
+        int i = 0;
+        for (int place = nextPlace(0); place >= 0; place = nextPlace(place + 1)){
+            rtn[i++] = id(place);
+        }
+        return rtn;
+    }
+
+    /**
+     * Takes one word out without returning it; a linear search, for when
+     * a word is chosen some other way.
+     *
+     * @return whether it was there to take
+     */
+    public boolean remove(String word){
+        return take(word) >= 0;
+    }
+
+    /** remove(), returning the word's id, or -1 if it wasn't there. */
+    public int take(String word){
+        for (int place = nextPlace(0); place >= 0; place = nextPlace(place + 1)){
+            if (words.apply(id(place)).equals(word)){
+                places[place >>> 6] &= ~(1L << place);
+                count--;
+                left--;
+                return id(place);
+            }
+        }
+        return -1;
+    }
+
+    private int id(int place){
+        return (sequence == null) ? place : sequence[place];
+    }
+
+    /** The first place left, moving from up to it. */
+    private int first(){
+        from = nextPlace(from);
+        return from;
+    }
+
+    /** The place of the rank-th set bit, counting from 0. */
+    private int select(int rank){
+        int k = 0;
+        int n;
+        while ((n = Long.bitCount(places[k])) <= rank){
+            rank -= n;
+            k++;
+        }
+        long block = places[k];
+        for (; rank > 0; rank--){ block &= block - 1; }
+        return (k << 6) + Long.numberOfTrailingZeros(block);
+    }
+
+    /** @return the first place at or after from that is left, or -1 */
+    private int nextPlace(int from){
+        int k = from >>> 6;
+        if (k >= places.length){ return -1; }
+        long block = places[k] & (-1L << from);
+        while (true){
+            if (block != 0){ return (k << 6) + Long.numberOfTrailingZeros(block); }
+            if (++k == places.length){ return -1; }
+            block = places[k];
+        }
+    }
+
+}
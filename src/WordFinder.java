@@ -1,76 +1,688 @@
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.channels.FileChannel;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import jdk.jfr.FlightRecorder;
 
 /**
  * Code utilizing methods found on www.java-tips.org to apply regular
  * expressions to a file.
  *
+ * The file is the base word list, which never changes. Words can be added
+ * and removed on top of it, one at a time or as whole overlaid lists, each
+ * with a priority: a word is in the dictionary if the highest priority list
+ * that mentions it adds it, or, if none do, if the base has it. A list can
+ * also be a file that is watched and reloaded whenever it changes.
+ *
+ * Every change makes a new Edition, the difference from the base plus
+ * whatever indexes have been built, copied on write: the index and letter
+ * counts of the last edition are updated in place of being rebuilt, and
+ * the last edition itself is left as it was. A solve takes a snapshot()
+ * when it starts, and sees the same words until it ends, however the
+ * dictionary changes in the meantime.
+ *
  * @author java-tips.org
  * @author paul g
  */
 public class WordFinder {
 
     private static final String FILE = "resources/ospd.txt";
-    private static final int NUM_RETURN_VALUES = 100;
+    private static final String BOUNDARY = "\\b";
+    private static final String REGEX_KEY = "/"; // can't start a slot pattern
+    private static final int RESULT_CACHE_SIZE = 4096;
+    private static final int PATTERN_CACHE_SIZE = 256;
+    private static final int EDITS_PRIORITY = Integer.MAX_VALUE;
+    private static final String ADDED = "+edits";     // addWord()'s overlay
+    private static final String REMOVED = "-edits";   // and removeWord()'s
 
     CharSequence fileContents;
+    private WordMatcher matcher;
+    private WordIndex index; // only when the backend isn't one already,
+                             // or when it came compiled
+    private volatile WordSet words;         // every base word, for isWord()
+    private final LruCache<String, List<String>> results;
+    private final LruCache<String, Pattern> patterns;
+    private final QueryStats stats;
+    private final WordFinder live;          // this, or the one a snapshot is of
+    private volatile Edition edition;
+    private Watcher watcher;                // once a file is watched
 
     /** Creates fileContents using the default FILE. */
     public WordFinder(){
-        try{
-            this.fileContents = toCharSequence(FILE);
-        }catch (IOException e){
-            e.printStackTrace();
-            System.exit(-1);
-        }
+        this(FILE, Backend.INDEX);
+    }
+
+    /** Creates fileContents using the default FILE and the given backend. */
+    public WordFinder(Backend backend){
+        this(FILE, backend);
     }
 
     /** Creates fileContents using a provided String. */
     public WordFinder(String fileContents){
+        this(fileContents, Backend.INDEX);
+    }
+
+    /**
+     * Creates fileContents using a provided String, answering slot patterns
+     * with the given backend. The file may be a plain word list or one
+     * compiled by DictionaryFile, in which case the index comes ready-made
+     * out of the file instead of being built.
+     */
+    public WordFinder(String fileContents, Backend backend){
+        results = new LruCache<>(RESULT_CACHE_SIZE);
+        patterns = new LruCache<>(PATTERN_CACHE_SIZE);
+        stats = new QueryStats(results);
+        live = this;
         try{
-            this.fileContents = toCharSequence(fileContents);
+            ByteBuffer mapped = DictionaryFile.map(fileContents);
+            if (DictionaryFile.isCompiled(mapped)){
+                DictionaryFile dictionary = new DictionaryFile(mapped);
+                this.fileContents = dictionary.getText();
+                this.index = dictionary.getIndex();
+                this.matcher = (backend == Backend.INDEX) ? index : backend.create(this.fileContents);
+            }else{
+                this.fileContents = new ByteCharSequence(mapped);
+                this.matcher = backend.create(this.fileContents);
+            }
         }catch (IOException e){
             e.printStackTrace();
             System.exit(-1);
         }
+        edition = new Edition(0, Collections.emptyList(), Collections.emptySet(), Collections.emptySet());
+        if (matcher instanceof WordIndex){ edition.index = (WordIndex) matcher; }
+    }
+
+    /** A snapshot of live: the same words and caches, but never changing. */
+    private WordFinder(WordFinder live){
+        fileContents = live.fileContents;
+        matcher = live.matcher;
+        results = live.results;
+        patterns = live.patterns;
+        stats = live.stats;
+        this.live = live;
+        edition = live.edition;
+    }
+
+    /**
+     * The dictionary as it is now, to answer every query of one solve the
+     * same way however this one changes in the meantime. Snapshots share
+     * this one's caches and statistics, but can't be changed themselves.
+     */
+    public WordFinder snapshot(){
+        return new WordFinder(this);
+    }
+
+    /** Counts the changes made so far; a snapshot keeps the count it had. */
+    public long getVersion(){
+        return edition.version;
     }
 
     /**
      * Finds and returns all the matches of regex to fileContents.
+     *
+     * Whole-word slot patterns, such as the ones Board builds ("\\bc.t..\\b"),
+     * are answered by the backend's WordMatcher. Anything else is run as a
+     * regular expression over the file.
+     *
+     * @return a copy the caller is free to modify
      */
     public ArrayList<String> findMatches(String regex){
+        return new ArrayList<>(lookup(regex));
+    }
+
+    /**
+     * Same as findMatches, but returns the cached, unmodifiable list itself.
+     * Callers that only read the results should use this to skip the copy.
+     *
+     * Results are cached under the bare slot pattern when there is one, so
+     * "\\bc.t\\b" and its compiled Pattern are only ever computed once
+     * while they stay in the cache.
+     *
+     * Every call is timed into getStats(), and recorded as a QueryEvent
+     * when Flight Recorder is on.
+     */
+    public List<String> lookup(String regex){
+        // as in Board, no event classes until a recording has started JFR
+        QueryEvent event = FlightRecorder.isInitialized() ? new QueryEvent() : null;
+        if (event != null){ event.begin(); }
+        long start = System.nanoTime();
+        Edition e = edition;
+        String slot = toSlotPattern(regex);
+        String key = (slot != null) ? slot : REGEX_KEY + regex;
+        if (e.version > 0){ key = e.version + key; } // no edition sees another's
+        List<String> matches = results.get(key);
+        boolean cached = matches != null;
+        if (!cached){
+            matches = Collections.unmodifiableList(
+                    (slot != null) ? findSlot(e, slot) : scan(e, regex));
+            results.put(key, matches);
+        }
+        stats.query(System.nanoTime() - start);
+        if (event != null){
+            event.end();
+            if (event.shouldCommit()){
+                event.pattern = regex;
+                event.matches = matches.size();
+                event.cached = cached;
+                event.commit();
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The matches of regex as a lazy cursor, for callers that may only want
+     * the first few of them. On the index and scan backends, a slot
+     * pattern is answered straight from the matcher's bitset, so no word is
+     * looked up until the cursor reaches it, and nothing goes through the
+     * result cache; anything else is a cursor over lookup()'s cached list.
+     *
+     * @param order: where to draw a random order from, or null for the
+     *      order findMatches() returns them in
+     * @param limit: the most matches to return, or 0 for all of them
+     */
+    public WordCursor candidates(String regex, Random order, int limit){
+        Edition e = edition;
+        String slot = toSlotPattern(regex);
+        if (slot != null && !needsEditing(e)){
+            long start = System.nanoTime();
+            WordCursor rtn = matcher(e).cursor(slot, order, limit);
+            if (rtn != null){
+                stats.query(System.nanoTime() - start);
+                return rtn;
+            }
+        }
+        return WordCursor.of(lookup(regex), order, limit);
+    }
+
+    /**
+     * The positional index over the dictionary, which Board's forward
+     * checking keeps its domains in. Built on first use if the backend
+     * isn't already an index.
+     */
+    public WordIndex getIndex(){
+        return getIndex(edition);
+    }
+
+    private WordIndex getIndex(Edition e){
+        synchronized (e){
+            if (e.index != null){ return e.index; }
+        }
+        // built before taking e's lock, since an edit holds this one's and
+        // then takes e's
+        WordIndex base = baseIndex();
+        synchronized (e){
+            if (e.index == null){
+                e.index = (e.version > 0) ? base.with(e.added, e.removed) : base;
+            }
+            return e.index;
+        }
+    }
+
+    private WordIndex baseIndex(){
+        return (live != this) ? live.baseIndex() : buildIndex();
+    }
+
+    private synchronized WordIndex buildIndex(){
+        if (!(matcher instanceof WordIndex)){
+            if (index == null){ index = new WordIndex(fileContents); }
+            return index;
+        }
+        return (WordIndex) matcher;
+    }
+
+    /**
+     * Letter counts by word length and position, over the same index as
+     * getIndex(), for Board's least-constraining-value ordering. Built on
+     * first use, and each length counted as it is first asked for.
+     */
+    public LetterFrequencies getLetterFrequencies(){
+        Edition e = edition;
+        WordIndex index = getIndex(e);
+        synchronized (e){
+            if (e.frequencies == null){ e.frequencies = new LetterFrequencies(index); }
+            return e.frequencies;
+        }
+    }
+
+    /**
+     * Whether the dictionary has this exact word: a hash lookup, with no
+     * pattern and no cache involved. The set of base words is built on
+     * first use.
+     */
+    public boolean isWord(String word){
+        Edition e = edition;
+        if (e.added.contains(word)){ return true; }
+        return !e.removed.contains(word) && baseWords().contains(word);
+    }
+
+    /**
+     * isWord() for the word in the first length chars of letters, which
+     * makes no String of it unless the dictionary has been changed.
+     */
+    public boolean isWord(char[] letters, int length){
+        Edition e = edition;
+        if (!e.added.isEmpty() || !e.removed.isEmpty()){ return isWord(new String(letters, 0, length)); }
+        return baseWords().contains(letters, length);
+    }
+
+    private boolean isBaseWord(String word){
+        return baseWords().contains(word);
+    }
 
+    private WordSet baseWords(){
+        if (live != this){ return live.baseWords(); }
+        WordSet set = words;
+        if (set == null){
+            synchronized (this){
+                if (words == null){ words = new WordSet(fileContents); }
+                set = words;
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Adds a word, over every list and the base. Words are lowercased, and
+     * must then be a-z only.
+     */
+    public void addWord(String word){
+        edit(normalize(word), true);
+    }
+
+    /** Removes a word, over every list and the base. */
+    public void removeWord(String word){
+        edit(normalize(word), false);
+    }
+
+    private synchronized void edit(String word, boolean add){
+        Edition e = edition;
+        HashSet<String> added = new HashSet<>(overlay(e, ADDED).words);
+        HashSet<String> removed = new HashSet<>(overlay(e, REMOVED).words);
+        (add ? added : removed).add(word);
+        (add ? removed : added).remove(word);
+        ArrayList<Overlay> overlays = without(e.overlays, ADDED, REMOVED);
+        overlays.add(new Overlay(ADDED, EDITS_PRIORITY, false, added));
+        overlays.add(new Overlay(REMOVED, EDITS_PRIORITY, true, removed));
+        change(overlays, Collections.singleton(word));
+    }
+
+    /**
+     * Lays a list of words over the dictionary, replacing any list of the
+     * same name. A list either adds its words or, if banned, removes them;
+     * where lists disagree about a word, the one with the higher priority
+     * wins, and at equal priorities a ban wins. Words added or removed one
+     * at a time outrank every list.
+     */
+    public synchronized void putOverlay(String name, int priority, boolean banned, Collection<String> words){
+        HashSet<String> normalized = new HashSet<>();
+        for (String word : words){ normalized.add(normalize(word)); }
+        Edition e = edition;
+        Overlay old = overlay(e, name);
+        if (old.priority == priority && old.banned == banned && old.words.equals(normalized)){ return; }
+
+        ArrayList<Overlay> overlays = without(e.overlays, name);
+        overlays.add(new Overlay(name, priority, banned, normalized));
+        HashSet<String> affected = new HashSet<>(old.words);
+        affected.addAll(normalized);
+        change(overlays, affected);
+    }
+
+    /** Takes a list back off the dictionary. */
+    public synchronized void removeOverlay(String name){
+        Overlay old = overlay(edition, name);
+        change(without(edition.overlays, name), old.words);
+    }
+
+    /**
+     * Lays a word list file over the dictionary, as putOverlay() does, and
+     * reloads it whenever the file changes until stopWatching(). Solves
+     * already running carry on with the words they started with.
+     */
+    public synchronized void watch(String name, int priority, boolean banned, String file) throws IOException {
+        Path path = Paths.get(file).toAbsolutePath();
+        putOverlay(name, priority, banned, readList(path));
+        if (watcher == null){ watcher = new Watcher(); }
+        watcher.add(path, name, priority, banned);
+    }
+
+    /** Stops reloading watched files; their lists stay as last loaded. */
+    public synchronized void stopWatching(){
+        if (watcher != null){
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Makes the edition with the given lists. Only the affected words can
+     * have changed, so only they are looked up again, and the index and
+     * letter counts, if the last edition had them, are updated for the
+     * words that went in or out rather than rebuilt.
+     */
+    private void change(ArrayList<Overlay> overlays, Collection<String> affected){
+        if (live != this){ throw new IllegalStateException("A snapshot can't be changed"); }
+        overlays.sort(BY_PRIORITY);
+        Edition e = edition;
+        HashSet<String> added = new HashSet<>(e.added);
+        HashSet<String> removed = new HashSet<>(e.removed);
+        ArrayList<String> in = new ArrayList<>();
+        ArrayList<String> out = new ArrayList<>();
+        for (String word : affected){
+            boolean base = isBaseWord(word);
+            boolean was = e.added.contains(word) || (base && !e.removed.contains(word));
+            boolean now = base;
+            for (Overlay overlay : overlays){
+                if (overlay.words.contains(word)){
+                    now = !overlay.banned;
+                    break;
+                }
+            }
+            if (now == was){ continue; }
+            (now ? in : out).add(word);
+            if (now){
+                removed.remove(word);
+                if (!base){ added.add(word); }
+            }else{
+                added.remove(word);
+                if (base){ removed.add(word); }
+            }
+        }
+
+        Edition next = new Edition(e.version + 1, overlays, added, removed);
+        synchronized (e){
+            if (e.index != null){ next.index = e.index.with(in, out); }
+            if (e.frequencies != null){ next.frequencies = e.frequencies.with(next.index, in, out); }
+        }
+        edition = next;
+    }
+
+    private static Overlay overlay(Edition e, String name){
+        for (Overlay overlay : e.overlays){
+            if (overlay.name.equals(name)){ return overlay; }
+        }
+        return new Overlay(name, 0, false, Collections.emptySet());
+    }
+
+    private static ArrayList<Overlay> without(List<Overlay> overlays, String... names){
+        ArrayList<Overlay> rtn = new ArrayList<>(overlays);
+        rtn.removeIf(overlay -> Arrays.asList(names).contains(overlay.name));
+        return rtn;
+    }
+
+    /** A word as the dictionary stores it, or IllegalArgumentException. */
+    private static String normalize(String word){
+        String rtn = word.trim().toLowerCase(Locale.ROOT);
+        if (rtn.isEmpty() || !WordMatcher.isIndexable(rtn)){
+            throw new IllegalArgumentException("Not a word: " + word);
+        }
+        return rtn;
+    }
+
+    /** The non-empty lines of a word list file, skipping any that aren't words. */
+    private static List<String> readList(Path path) throws IOException {
+        ArrayList<String> rtn = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.ISO_8859_1)){
+            String word = line.trim().toLowerCase(Locale.ROOT);
+            if (!word.isEmpty() && WordMatcher.isIndexable(word)){ rtn.add(word); }
+        }
+        return rtn;
+    }
+
+    /** Resizes the result cache; 0 turns caching off. */
+    public void setCacheCapacity(int capacity){
+        results.setCapacity(capacity);
+    }
+
+    /** Cache of query results, exposed for its hit/miss/eviction counters. */
+    public LruCache<String, List<String>> getResultCache(){
+        return results;
+    }
+
+    /** Query counts and latencies, for reporting or JMX. */
+    public QueryStats getStats(){
+        return stats;
+    }
+
+    /** Cache of compiled regexes, exposed for its counters. */
+    public LruCache<String, Pattern> getPatternCache(){
+        return patterns;
+    }
+
+    /**
+     * Runs a regular expression over the whole file, then over the words
+     * the edition adds, leaving out any it removes.
+     */
+    private ArrayList<String> scan(Edition e, String regex){
         ArrayList<String> matches = new ArrayList<>();
 
-        Pattern p = Pattern.compile(regex);
+        Pattern p = patterns.get(regex);
+        if (p == null){
+            p = Pattern.compile(regex);
+            patterns.put(regex, p);
+        }
         Matcher m = p.matcher(fileContents);
 
         while (m.find()){
             matches.add(m.group());
         }
+        if (!e.added.isEmpty() || !e.removed.isEmpty()){
+            matches.removeAll(e.removed);
+            m = p.matcher(String.join("\n", e.added));
+            while (m.find()){
+                matches.add(m.group());
+            }
+        }
 
         return matches;
 
     }
 
+    /** Answers a slot pattern with the edition's words. */
+    private ArrayList<String> findSlot(Edition e, String slot){
+        ArrayList<String> matches = matcher(e).findMatches(slot);
+        if (needsEditing(e)){
+            matches.removeAll(e.removed);
+            for (String word : e.added){
+                if (fits(slot, word)){ matches.add(word); }
+            }
+        }
+        return matches;
+    }
+
     /**
-     * Converts the contents of a file into a CharSequence.
+     * The matcher for slot patterns: the edition's own index on the index
+     * backend, or else the backend, which only ever has the base words.
      */
-    private CharSequence toCharSequence(String filename) throws IOException {
-        FileInputStream input = new FileInputStream(filename);
-        FileChannel channel = input.getChannel();
+    private WordMatcher matcher(Edition e){
+        return (matcher instanceof WordIndex) ? getIndex(e) : matcher;
+    }
 
-        // Create a read-only CharBuffer on the file
-        ByteBuffer bbuf = channel.map(FileChannel.MapMode.READ_ONLY, 0, (int) channel.size());
-        return Charset.forName("8859_1").newDecoder().decode(bbuf);
+    /** Whether the matcher's answers need the edition's changes applying. */
+    private boolean needsEditing(Edition e){
+        return !(matcher instanceof WordIndex) && (!e.added.isEmpty() || !e.removed.isEmpty());
+    }
+
+    private static boolean fits(String slot, String word){
+        if (slot.length() != word.length()){ return false; }
+        for (int i = 0; i < slot.length(); i++){
+            char c = slot.charAt(i);
+            if (c != WordMatcher.WILDCARD && c != word.charAt(i)){ return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Strips the word boundaries off a regex if what is left is a plain slot
+     * pattern the backend can serve.
+     *
+     * @return the slot pattern, or null if the regex must be scanned
+     */
+    private String toSlotPattern(String regex){
+        if (matcher == null || !matcher.isComplete() || !regex.startsWith(BOUNDARY) || !regex.endsWith(BOUNDARY)){
+            return null;
+        }
+        if (regex.length() <= 2 * BOUNDARY.length()){ return null; }
+        String slot = regex.substring(BOUNDARY.length(), regex.length() - BOUNDARY.length());
+        return WordMatcher.isSlotPattern(slot) ? slot : null;
+    }
+
+    private static final Comparator<Overlay> BY_PRIORITY =
+            Comparator.comparingInt((Overlay overlay) -> -overlay.priority)
+                    .thenComparing(overlay -> !overlay.banned);
+
+    /**
+     * One version of the dictionary: the lists over the base, highest
+     * priority first, and what they add to and remove from it. The indexes
+     * are built on first use, or carried over from the edition before.
+     */
+    private static final class Edition {
+        final long version;
+        final List<Overlay> overlays;
+        final Set<String> added;        // words the base doesn't have
+        final Set<String> removed;      // base words taken out
+        WordIndex index;                // guarded by this
+        LetterFrequencies frequencies;  // guarded by this
+
+        Edition(long version, List<Overlay> overlays, Set<String> added, Set<String> removed){
+            this.version = version;
+            this.overlays = overlays;
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+    /** A named list of words laid over the dictionary. */
+    private static final class Overlay {
+        final String name;
+        final int priority;
+        final boolean banned;           // removes its words instead of adding
+        final Set<String> words;
+
+        Overlay(String name, int priority, boolean banned, Set<String> words){
+            this.name = name;
+            this.priority = priority;
+            this.banned = banned;
+            this.words = words;
+        }
+    }
+
+    /**
+     * Reloads watched lists as their files change, on a daemon thread of
+     * its own. Directories are watched rather than files, so a list that
+     * is saved by writing a new file and renaming it over the old one is
+     * picked up too.
+     */
+    private final class Watcher implements Runnable {
+        private final WatchService service;
+        private final Map<Path, Watched> lists = new HashMap<>(); // by file
+        private final Thread thread;
+
+        Watcher() throws IOException {
+            service = FileSystems.getDefault().newWatchService();
+            thread = new Thread(this, "dictionary-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void add(Path file, String name, int priority, boolean banned) throws IOException {
+            file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            lists.put(file, new Watched(name, priority, banned));
+        }
+
+        @Override
+        public void run(){
+            try {
+                while (true){
+                    WatchKey key = service.take();
+                    Path dir = (Path) key.watchable();
+                    HashSet<Path> changed = new HashSet<>();
+                    for (WatchEvent<?> event : key.pollEvents()){
+                        if (event.context() instanceof Path){ changed.add(dir.resolve((Path) event.context())); }
+                    }
+                    key.reset();
+                    for (Path file : changed){ reload(file); }
+                }
+            }catch (InterruptedException | ClosedWatchServiceException e){
+                // stopped
+            }
+        }
+
+        private void reload(Path file){
+            Watched list;
+            synchronized (this){ list = lists.get(file); }
+            if (list == null){ return; }
+            try {
+                putOverlay(list.name, list.priority, list.banned, readList(file));
+            }catch (IOException e){
+                // half written, or gone for now; keep the list as it was
+                System.err.println("WARNING: Could not reload " + file + ": " + e.getMessage());
+            }
+        }
+
+        void close(){
+            try {
+                service.close();
+            }catch (IOException e){
+                // closing anyway
+            }
+            thread.interrupt();
+        }
+    }
+
+    /** The overlay a watched file is loaded into. */
+    private static final class Watched {
+        final String name;
+        final int priority;
+        final boolean banned;
+
+        Watched(String name, int priority, boolean banned){
+            this.name = name;
+            this.priority = priority;
+            this.banned = banned;
+        }
+    }
+
+    /** Enum for choosing how slot patterns are answered. */
+    public enum Backend {
+        REGEX, INDEX, TRIE, SCAN;
+
+        WordMatcher create(CharSequence contents){
+            switch (this){
+                case INDEX:
+                    return new WordIndex(contents);
+                case TRIE:
+                    return new WordTrie(contents);
+                case SCAN:
+                    return new PackedWords(contents);
+                default:
+                    return null; // scan the file for every query
+            }
+        }
     }
 
 
@@ -0,0 +1,322 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Positional bitset index over a word list. Words are grouped by length, and
+ * every (length, position, letter) triple owns a bitset over the words of
+ * that length, so a slot pattern such as "c.t.." is resolved by ANDing one
+ * bitset per fixed letter instead of scanning the whole file.
+ *
+ * The words themselves are kept the same way, one byte array per length
+ * holding every word of that length end to end, so that a word is its
+ * length and an id, and a String is only made of it when asked for.
+ *
+ * Only lowercase a-z words are indexed. If the source contains anything
+ * else, the index marks itself incomplete and WordFinder falls back to the
+ * regular expression path for every query.
+ *
+ * An index read from a DictionaryFile starts out empty and loads the words
+ * of each length the first time they are asked for.
+ *
+ * An index never changes once built. A dictionary that does gets a new
+ * index from with(), which shares everything the change didn't touch with
+ * the old one, so solves still using the old one carry on undisturbed.
+ *
+ * @author paul g
+ */
+public class WordIndex implements WordMatcher {
+
+    private static final int ALPHABET_SIZE = 26;
+    private static final long[] NO_IDS = new long[0];
+
+    private final Group[] groups;       // by word length
+    private final IntFunction<Group> loader; // for groups not loaded yet
+    private boolean complete = true;
+
+    /** Builds the index from newline separated words. */
+    public WordIndex(CharSequence contents){
+        ArrayList<ArrayList<String>> byLength = new ArrayList<>();
+        for (String word : WordMatcher.splitLines(contents)){
+            if (!WordMatcher.isIndexable(word)){
+                complete = false;
+                continue;
+            }
+            while (byLength.size() <= word.length()){ byLength.add(new ArrayList<>()); }
+            byLength.get(word.length()).add(word);
+        }
+
+        groups = new Group[byLength.size()];
+        loader = null;
+        for (int len = 0; len < byLength.size(); len++){
+            ArrayList<String> words = byLength.get(len);
+            byte[] letters = new byte[words.size() * len];
+            long[][] bits = new long[len * ALPHABET_SIZE][];
+            int numLongs = (words.size() + 63) >>> 6;
+            for (int k = 0; k < bits.length; k++){
+                bits[k] = new long[numLongs];
+            }
+            for (int id = 0; id < words.size(); id++){
+                String word = words.get(id);
+                for (int pos = 0; pos < len; pos++){
+                    letters[id * len + pos] = (byte) word.charAt(pos);
+                    bits[pos * ALPHABET_SIZE + (word.charAt(pos) - 'a')][id >>> 6] |= 1L << id;
+                }
+            }
+            groups[len] = new Group(words.size(), letters, bits);
+        }
+    }
+
+    /**
+     * An index whose groups are loaded on first use, for a DictionaryFile.
+     *
+     * @param lengths: one more than the longest word length
+     */
+    WordIndex(int lengths, IntFunction<Group> loader, boolean complete){
+        this.groups = new Group[lengths];
+        this.loader = loader;
+        this.complete = complete;
+    }
+
+    private WordIndex(Group[] groups, IntFunction<Group> loader, boolean complete){
+        this.groups = groups;
+        this.loader = loader;
+        this.complete = complete;
+    }
+
+    /**
+     * A copy of this index with some words added and others removed. Only
+     * the lengths they have are copied, and within those, only the columns
+     * they have letters in, unless the new ids spill into another long;
+     * the rest are shared. Added words get new ids at the end, and removed
+     * ones keep theirs but drop out of every column, so ids in this index
+     * still mean the same words in the copy.
+     *
+     * @param added: lowercase a-z words not in the index
+     * @param removed: words in the index
+     */
+    public WordIndex with(Collection<String> added, Collection<String> removed){
+        int lengths = groups.length;
+        for (String word : added){ lengths = Math.max(lengths, word.length() + 1); }
+        ArrayList<ArrayList<String>> adds = byLength(added, lengths);
+        ArrayList<ArrayList<String>> removes = byLength(removed, lengths);
+
+        Group[] copy = Arrays.copyOf(groups, lengths);
+        for (int len = 0; len < lengths; len++){
+            boolean longer = len >= groups.length; // nothing to load it from
+            if (!longer && adds.get(len).isEmpty() && removes.get(len).isEmpty()){ continue; }
+            Group group = longer ? new Group(0, new byte[0], new long[len * ALPHABET_SIZE][0]) : group(len);
+            copy[len] = group.with(adds.get(len), removes.get(len));
+        }
+        return new WordIndex(copy, loader, complete);
+    }
+
+    private static ArrayList<ArrayList<String>> byLength(Collection<String> words, int lengths){
+        ArrayList<ArrayList<String>> rtn = new ArrayList<>(lengths);
+        for (int len = 0; len < lengths; len++){ rtn.add(new ArrayList<>()); }
+        for (String word : words){
+            if (word.length() < lengths){ rtn.get(word.length()).add(word); }
+        }
+        return rtn;
+    }
+
+    @Override
+    public boolean isComplete(){
+        return complete;
+    }
+
+    /** Finds all the words matching a slot pattern, in file order. */
+    @Override
+    public ArrayList<String> findMatches(String pattern){
+        ArrayList<String> matches = new ArrayList<>();
+        int len = pattern.length();
+        if (len >= groups.length || group(len).count == 0){ return matches; }
+
+        long[] result = matchBits(pattern);
+        Group candidates = group(len);
+        for (int k = 0; k < result.length; k++){
+            long block = result[k];
+            while (block != 0){
+                matches.add(candidates.word((k << 6) + Long.numberOfTrailingZeros(block)));
+                block &= block - 1;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * A lazy cursor over the words matching a slot pattern: the same words
+     * as findMatches(), but only the bitset is computed up front.
+     */
+    @Override
+    public WordCursor cursor(String pattern, Random order, int limit){
+        int len = pattern.length();
+        if (len >= groups.length){ return new WordCursor(new long[0], null, order, limit); }
+        Group group = group(len);
+        return new WordCursor(matchBits(pattern), group::word, order, limit);
+    }
+
+    /**
+     * Builds the candidate domain of a slot: every word of the pattern's
+     * length that agrees with its fixed letters.
+     */
+    public Domain domainOf(String pattern){
+        int len = pattern.length();
+        if (len >= groups.length){ return new Domain(len, new long[0]); }
+        return new Domain(len, matchBits(pattern));
+    }
+
+    /**
+     * The ids of the words of a given length with letter c at pos, or none
+     * if there are no words that long. Shared with the index, so callers
+     * must not modify it.
+     */
+    long[] column(int length, int pos, char c){
+        if (length >= groups.length){ return NO_IDS; }
+        return group(length).bits[pos * ALPHABET_SIZE + (c - 'a')];
+    }
+
+    /** @return the word of a given length with the given id */
+    public String getWord(int length, int id){
+        return group(length).word(id);
+    }
+
+    /**
+     * The letters of every word of a given length, end to end by id, so
+     * that word id's letter at pos is at id * length + pos. Shared with the
+     * index, so callers must not modify it.
+     */
+    byte[] letters(int length){
+        return group(length).letters;
+    }
+
+    /**
+     * @return the number of ids of a given length, which is the number of
+     *      words unless some have been removed
+     */
+    public int count(int length){
+        return (length < groups.length) ? group(length).count : 0;
+    }
+
+    /** @return one more than the longest word length */
+    int lengths(){
+        return groups.length;
+    }
+
+    /**
+     * The group of words of a given length, loading it if need be. Threads
+     * racing to load the same group each load an identical copy, and
+     * whichever lands last stays; that is cheaper than locking every call.
+     */
+    private Group group(int length){
+        Group group = groups[length];
+        if (group == null){
+            group = loader.apply(length);
+            groups[length] = group;
+        }
+        return group;
+    }
+
+    /** ANDs together the columns of the pattern's fixed letters. */
+    private long[] matchBits(String pattern){
+        int len = pattern.length();
+        long[] result = null;
+        for (int pos = 0; pos < len; pos++){
+            char c = pattern.charAt(pos);
+            if (c == WILDCARD){ continue; }
+            long[] column = column(len, pos, c);
+            if (result == null){
+                result = column.clone();
+            }else{
+                for (int k = 0; k < result.length; k++){
+                    result[k] &= column[k];
+                }
+            }
+        }
+        if (result == null){
+            // no fixed letters, so every word of this length
+            result = group(len).alive.clone();
+        }
+        return result;
+    }
+
+    /**
+     * The words of one length and their bitsets. All its fields are final,
+     * so a group is safe to hand between threads however it gets there.
+     */
+    static final class Group {
+        final int count;        // ids, in file order
+        final byte[] letters;   // every word's, end to end by id
+        final long[][] bits;    // bits[pos * 26 + letter], over the ids
+        final long[] alive;     // the ids not removed
+
+        Group(int count, byte[] letters, long[][] bits){
+            this(count, letters, bits, new long[(count + 63) >>> 6]);
+            for (int id = 0; id < count; id++){
+                alive[id >>> 6] |= 1L << id;
+            }
+        }
+
+        private Group(int count, byte[] letters, long[][] bits, long[] alive){
+            this.count = count;
+            this.letters = letters;
+            this.bits = bits;
+            this.alive = alive;
+        }
+
+        String word(int id){
+            int len = bits.length / ALPHABET_SIZE;
+            return new String(letters, id * len, len, StandardCharsets.ISO_8859_1);
+        }
+
+        /** with() for one length, copying columns only as they change. */
+        Group with(ArrayList<String> added, ArrayList<String> removed){
+            int len = bits.length / ALPHABET_SIZE;
+            int newCount = count + added.size();
+            byte[] newLetters = Arrays.copyOf(letters, newCount * len);
+            int numLongs = (newCount + 63) >>> 6;
+            boolean grown = numLongs != alive.length;
+            long[][] newBits = bits.clone();
+            boolean[] copied = new boolean[bits.length];
+            if (grown){
+                for (int k = 0; k < bits.length; k++){ newBits[k] = Arrays.copyOf(bits[k], numLongs); }
+                Arrays.fill(copied, true);
+            }
+            long[] newAlive = Arrays.copyOf(alive, numLongs);
+
+            HashMap<String, Integer> ids = new HashMap<>();
+            if (!removed.isEmpty()){
+                for (int id = 0; id < count; id++){
+                    if ((alive[id >>> 6] & (1L << id)) != 0){ ids.put(word(id), id); }
+                }
+            }
+            for (String word : removed){
+                Integer id = ids.get(word);
+                if (id == null){ continue; }
+                newAlive[id >>> 6] &= ~(1L << id);
+                for (int pos = 0; pos < len; pos++){
+                    int k = pos * ALPHABET_SIZE + (word.charAt(pos) - 'a');
+                    if (!copied[k]){ newBits[k] = newBits[k].clone(); copied[k] = true; }
+                    newBits[k][id >>> 6] &= ~(1L << id);
+                }
+            }
+            for (int i = 0; i < added.size(); i++){
+                String word = added.get(i);
+                int id = count + i;
+                newAlive[id >>> 6] |= 1L << id;
+                for (int pos = 0; pos < len; pos++){
+                    newLetters[id * len + pos] = (byte) word.charAt(pos);
+                    int k = pos * ALPHABET_SIZE + (word.charAt(pos) - 'a');
+                    if (!copied[k]){ newBits[k] = newBits[k].clone(); copied[k] = true; }
+                    newBits[k][id >>> 6] |= 1L << id;
+                }
+            }
+            return new Group(newCount, newLetters, newBits, newAlive);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * A dictionary backend that can answer fixed-length slot patterns, i.e. the
+ * letters-and-wildcards strings Board builds for each point of interest.
+ * WordFinder picks one of these at construction time and falls back to a
+ * regular expression scan for anything else.
+ *
+ * @author paul g
+ */
+public interface WordMatcher {
+
+    char WILDCARD = '.';
+
+    /**
+     * Finds all the words matching a slot pattern.
+     *
+     * @param pattern: lowercase letters and WILDCARDs, one character per cell
+     */
+    ArrayList<String> findMatches(String pattern);
+
+    /**
+     * The matches of a slot pattern as a lazy cursor, for matchers that
+     * find them as a bitset and can leave the words until they are asked
+     * for; null from those that can't, whose findMatches() lists WordFinder
+     * caches instead.
+     */
+    default WordCursor cursor(String pattern, Random order, int limit){
+        return null;
+    }
+
+    /**
+     * Whether every word in the source was loaded. Results from an
+     * incomplete matcher would silently differ from the regex path.
+     */
+    boolean isComplete();
+
+    /**
+     * Whether the pattern is a plain slot pattern: lowercase letters and
+     * WILDCARDs only.
+     */
+    static boolean isSlotPattern(String pattern){
+        if (pattern.isEmpty()){ return false; }
+        for (int i = 0; i < pattern.length(); i++){
+            char c = pattern.charAt(i);
+            if (c != WILDCARD && (c < 'a' || c > 'z')){ return false; }
+        }
+        return true;
+    }
+
+    /** Splits newline separated contents into its non-empty lines. */
+    static ArrayList<String> splitLines(CharSequence contents){
+        ArrayList<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= contents.length(); i++){
+            if (i < contents.length() && contents.charAt(i) != '\n'){ continue; }
+            int end = i;
+            if (end > start && contents.charAt(end - 1) == '\r'){ end--; }
+            if (end > start){
+                lines.add(contents.subSequence(start, end).toString());
+            }
+            start = i + 1;
+        }
+        return lines;
+    }
+
+    /** Whether a word can be stored by a matcher: lowercase a-z only. */
+    static boolean isIndexable(CharSequence word){
+        for (int i = 0; i < word.length(); i++){
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z'){ return false; }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * A set of words stored as one byte arena: every word's bytes end to end,
+ * one byte a letter, with an array of where each starts, and an
+ * open-addressing table of word numbers over them. That is two arrays of
+ * primitives and the arena, where a HashSet of Strings costs a String, its
+ * array and a map entry for every word.
+ *
+ * A word can be looked up straight from the characters in a buffer, so
+ * checking whether a slot spells a word needs no String at all.
+ *
+ * Words are stored one byte per char, as ISO-8859-1, which is how the word
+ * list is read; no word with a char past that is ever found.
+ *
+ * @author paul g
+ */
+public class WordSet {
+
+    private final byte[] arena;         // every word's bytes, end to end
+    private final int[] starts;         // where word i starts; starts[size] is the end
+    private final int size;
+    private final int[] table;          // word number + 1, or 0 for empty
+    private final int mask;             // table.length - 1
+
+    /** Stores the newline separated words, ignoring blank lines and duplicates. */
+    public WordSet(CharSequence contents){
+        int count = 0;
+        int letters = 0;
+        for (int i = 0, start = 0; i <= contents.length(); i++){
+            if (i < contents.length() && contents.charAt(i) != '\n'){ continue; }
+            int end = trim(contents, start, i);
+            if (end > start){
+                count++;
+                letters += end - start;
+            }
+            start = i + 1;
+        }
+
+        arena = new byte[letters];
+        starts = new int[count + 1];
+        int capacity = 2;
+        while (capacity < 2 * count){ capacity <<= 1; }
+        table = new int[capacity];
+        mask = capacity - 1;
+
+        int n = 0;
+        int at = 0;
+        for (int i = 0, start = 0; i <= contents.length(); i++){
+            if (i < contents.length() && contents.charAt(i) != '\n'){ continue; }
+            int end = trim(contents, start, i);
+            if (end > start){
+                starts[n] = at;
+                for (int j = start; j < end; j++){ arena[at++] = (byte) contents.charAt(j); }
+                starts[n + 1] = at;
+                if (insert(n)){
+                    n++;
+                }else{
+                    at = starts[n]; // a duplicate
+                }
+            }
+            start = i + 1;
+        }
+        size = n;
+    }
+
+    /** Whether the set has this word. */
+    public boolean contains(CharSequence word){
+        int length = word.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++){ hash = 31 * hash + word.charAt(i); }
+        for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask){
+            int n = table[slot] - 1;
+            if (starts[n + 1] - starts[n] != length){ continue; }
+            int at = starts[n];
+            int i = 0;
+            while (i < length && (arena[at + i] & 0xff) == word.charAt(i)){ i++; }
+            if (i == length){ return true; }
+        }
+        return false;
+    }
+
+    /** Whether the set has the word in the first length chars of letters. */
+    public boolean contains(char[] letters, int length){
+        int hash = 0;
+        for (int i = 0; i < length; i++){ hash = 31 * hash + letters[i]; }
+        for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask){
+            int n = table[slot] - 1;
+            if (starts[n + 1] - starts[n] != length){ continue; }
+            int at = starts[n];
+            int i = 0;
+            while (i < length && (arena[at + i] & 0xff) == letters[i]){ i++; }
+            if (i == length){ return true; }
+        }
+        return false;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /** @return the end of the line from start to end, less any '\r' */
+    private static int trim(CharSequence contents, int start, int end){
+        return (end > start && contents.charAt(end - 1) == '\r') ? end - 1 : end;
+    }
+
+    /**
+     * Puts word n, already in the arena and ending at starts[n + 1], into
+     * the table.
+     *
+     * @return false if an equal word was there already
+     */
+    private boolean insert(int n){
+        int start = starts[n];
+        int length = starts[n + 1] - start;
+        int hash = 0;
+        for (int i = 0; i < length; i++){ hash = 31 * hash + (arena[start + i] & 0xff); }
+        int slot = mix(hash) & mask;
+        for (; table[slot] != 0; slot = (slot + 1) & mask){
+            int other = table[slot] - 1;
+            if (starts[other + 1] - starts[other] == length
+                    && Arrays.equals(arena, starts[other], starts[other] + length, arena, start, start + length)){
+                return false;
+            }
+        }
+        table[slot] = n + 1;
+        return true;
+    }
+
+    private static int mix(int hash){
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Word list stored as a DAWG: a trie whose identical suffix subtrees have
+ * been merged. A slot pattern is answered by walking the graph one cell at a
+ * time, taking every edge for a wildcard and only the matching edge for a
+ * fixed letter, so a mostly filled slot costs time proportional to the
+ * words that match instead of the size of the dictionary.
+ *
+ * Each node also records which word lengths end below it, so a walk stops
+ * as soon as no word of the slot's length can be completed.
+ *
+ * Matches come back in alphabetical order rather than file order.
+ *
+ * @author paul g
+ */
+public class WordTrie implements WordMatcher {
+
+    private static final int ALPHABET_SIZE = 26;
+    private static final int MAX_LENGTH = Long.SIZE - 1;
+
+    // Edges of node n are firstEdge[n] up to (not including) firstEdge[n + 1],
+    // sorted by letter.
+    private final int[] firstEdge;
+    private final byte[] edgeLetter;
+    private final int[] edgeTarget;
+    // Bit k of lengths[n] is set if a word ends exactly k letters below n.
+    private final long[] lengths;
+    private final int root;
+    private boolean complete = true;
+
+    /** Builds the graph from newline separated words. */
+    public WordTrie(CharSequence contents){
+        Node top = new Node();
+        for (String word : WordMatcher.splitLines(contents)){
+            if (!WordMatcher.isIndexable(word) || word.length() > MAX_LENGTH){
+                complete = false;
+                continue;
+            }
+            Node curr = top;
+            for (int i = 0; i < word.length(); i++){
+                int letter = word.charAt(i) - 'a';
+                if (curr.next[letter] == null){ curr.next[letter] = new Node(); }
+                curr = curr.next[letter];
+            }
+            curr.terminal = true;
+        }
+
+        Builder builder = new Builder();
+        root = builder.canonicalize(top);
+        int numNodes = builder.lengths.size();
+        firstEdge = new int[numNodes + 1];
+        lengths = new long[numNodes];
+        for (int n = 0; n < numNodes; n++){
+            firstEdge[n] = builder.firstEdge.get(n);
+            lengths[n] = builder.lengths.get(n);
+        }
+        firstEdge[numNodes] = builder.edgeTarget.size();
+        edgeLetter = new byte[builder.edgeTarget.size()];
+        edgeTarget = new int[builder.edgeTarget.size()];
+        for (int e = 0; e < edgeTarget.length; e++){
+            edgeLetter[e] = builder.edgeLetter.get(e);
+            edgeTarget[e] = builder.edgeTarget.get(e);
+        }
+    }
+
+    @Override
+    public boolean isComplete(){
+        return complete;
+    }
+
+    @Override
+    public ArrayList<String> findMatches(String pattern){
+        ArrayList<String> matches = new ArrayList<>();
+        if (pattern.length() <= MAX_LENGTH){
+            walk(root, pattern, 0, new char[pattern.length()], matches);
+        }
+        return matches;
+    }
+
+    /** Number of nodes left after suffix merging. */
+    public int getNodeCount(){
+        return lengths.length;
+    }
+
+    /** Number of edges left after suffix merging. */
+    public int getEdgeCount(){
+        return edgeTarget.length;
+    }
+
+    private void walk(int node, String pattern, int depth, char[] word, ArrayList<String> matches){
+        int remaining = pattern.length() - depth;
+        if ((lengths[node] >>> remaining & 1L) == 0){ return; }
+        if (remaining == 0){
+            matches.add(new String(word));
+            return;
+        }
+        char c = pattern.charAt(depth);
+        for (int e = firstEdge[node]; e < firstEdge[node + 1]; e++){
+            char letter = (char) ('a' + edgeLetter[e]);
+            if (c != WILDCARD && letter != c){
+                if (letter > c){ break; }
+                continue;
+            }
+            word[depth] = letter;
+            walk(edgeTarget[e], pattern, depth + 1, word, matches);
+        }
+    }
+
+    /** Plain trie node, only used while building. */
+    private static class Node {
+        Node[] next = new Node[ALPHABET_SIZE];
+        boolean terminal;
+    }
+
+    /**
+     * Merges identical subtrees bottom-up and lays the surviving nodes out
+     * in flat arrays.
+     */
+    private static class Builder {
+        HashMap<String, Integer> registry = new HashMap<>();
+        ArrayList<Integer> firstEdge = new ArrayList<>();
+        ArrayList<Long> lengths = new ArrayList<>();
+        ArrayList<Byte> edgeLetter = new ArrayList<>();
+        ArrayList<Integer> edgeTarget = new ArrayList<>();
+
+        int canonicalize(Node node){
+            int[] children = new int[ALPHABET_SIZE];
+            StringBuilder signature = new StringBuilder();
+            signature.append(node.terminal ? '1' : '0');
+            long below = node.terminal ? 1L : 0L;
+            for (int letter = 0; letter < ALPHABET_SIZE; letter++){
+                if (node.next[letter] == null){ continue; }
+                children[letter] = canonicalize(node.next[letter]);
+                signature.append((char) ('a' + letter)).append(children[letter]);
+                below |= lengths.get(children[letter]) << 1;
+            }
+
+            Integer existing = registry.get(signature.toString());
+            if (existing != null){ return existing; }
+
+            int id = lengths.size();
+            firstEdge.add(edgeTarget.size());
+            lengths.add(below);
+            for (int letter = 0; letter < ALPHABET_SIZE; letter++){
+                if (node.next[letter] == null){ continue; }
+                edgeLetter.add((byte) letter);
+                edgeTarget.add(children[letter]);
+            }
+            registry.put(signature.toString(), id);
+            return id;
+        }
+    }
+
+}
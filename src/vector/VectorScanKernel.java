@@ -0,0 +1,48 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * ScanKernel on the Vector API: compares as many packed words per
+ * instruction as the CPU has long lanes. Most comparisons match nothing,
+ * so only a mask with a lane set is looked at lane by lane to set bits of
+ * the hit set; VectorMask.toLong() would do that in one go, but on JDK 17
+ * it isn't intrinsified and costs more than the scalar loop.
+ *
+ * Kept out of src/ proper because it needs the incubator module to
+ * compile and to run:
+ *
+ *     javac --add-modules jdk.incubator.vector -d out src/*.java src/vector/*.java
+ *     java --add-modules jdk.incubator.vector -cp out Main -backend scan
+ *
+ * Without it, ScanKernel.load() falls back to the scalar kernel.
+ *
+ * @author paul g
+ */
+public class VectorScanKernel implements ScanKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public void scan(long[] words, long mask, long value, long[] hits){
+        LongVector masks = LongVector.broadcast(SPECIES, mask);
+        LongVector values = LongVector.broadcast(SPECIES, value);
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(words.length);
+        int i = 0;
+        for (; i < bound; i += lanes){
+            VectorMask<Long> hit = LongVector.fromArray(SPECIES, words, i).and(masks)
+                    .compare(VectorOperators.EQ, values);
+            if (hit.anyTrue()){
+                for (int lane = 0; lane < lanes; lane++){
+                    if (hit.laneIsSet(lane)){ hits[(i + lane) >>> 6] |= 1L << (i + lane); }
+                }
+            }
+        }
+        for (; i < words.length; i++){
+            if ((words[i] & mask) == value){ hits[i >>> 6] |= 1L << i; }
+        }
+    }
+
+}
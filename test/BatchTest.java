@@ -0,0 +1,49 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests that a batch writes one JSON line per board, solved or not.
+ *
+ * @author paul g
+ */
+public class BatchTest {
+
+    private Batch CuT;
+
+    @Test
+    public void run() throws InterruptedException {
+        CuT = new Batch(new WordFinder());
+        CuT.setParallelism(2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        int solved = CuT.run(Arrays.asList(new File("resources/board0.txt"),
+                new File("resources/board1.txt"), new File("resources/missing.txt")),
+                new PrintStream(bytes, true));
+        Assert.assertEquals(2, solved);
+
+        String[] lines = bytes.toString().trim().split("\n");
+        Assert.assertEquals(3, lines.length);
+        int errors = 0;
+        for (String line : lines){
+            Assert.assertTrue(line.startsWith("{\"file\":") && line.endsWith("}"));
+            if (line.contains("\"status\":\"solved\"")){
+                Assert.assertTrue(line.contains("\"grid\":["));
+                Assert.assertTrue(line.contains("\"words\":["));
+            }else{
+                Assert.assertTrue(line.contains("\"status\":\"error\""));
+                errors++;
+            }
+        }
+        Assert.assertEquals(1, errors);
+    }
+
+    @Test
+    public void quote(){
+        Assert.assertEquals("\"a\\\"b\\\\c\\n\"", Batch.quote("a\"b\\c\n"));
+    }
+}
@@ -2,6 +2,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.Assert;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
 /**
  * Created specifically to test isGoal() and nothing else, yet.
  *
@@ -44,4 +56,444 @@ public class BoardTest {
 
         Assert.assertTrue(CuT.isGoal());
     }
+
+    @Test
+    public void goalCounts() throws IOException {
+        File file = File.createTempFile("board", ".txt");
+        file.deleteOnExit();
+
+        Files.write(file.toPath(), "cat\n".getBytes());
+        CuT = new Board(file.getPath());
+        CuT.setPrompting(false);
+        CuT.init();
+        Assert.assertTrue(CuT.isGoal());
+
+        Files.write(file.toPath(), "czt\n".getBytes());
+        CuT = new Board(file.getPath());
+        CuT.setPrompting(false);
+        CuT.init();
+        Assert.assertFalse(CuT.isGoal());
+
+        Files.write(file.toPath(), "c_t\n".getBytes());
+        CuT = new Board(file.getPath());
+        CuT.setPrompting(false);
+        CuT.init();
+        Assert.assertFalse(CuT.isGoal());
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+    }
+
+    /** A search sees the words as they were when it started. */
+    @Test
+    public void dictionaryChanges() throws IOException {
+        File file = File.createTempFile("board", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "cat\n".getBytes());
+        WordFinder words = new WordFinder();
+        CuT = new Board(file.getPath(), words);
+        CuT.setPrompting(false);
+        CuT.init();
+        Assert.assertTrue(CuT.isGoal());
+
+        words.removeWord("cat");
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertFalse(CuT.isGoal());
+    }
+
+    @Test
+    public void forwardChecking(){
+        CuT = new Board(FILENAME);
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setForwardChecking(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertFalse(CuT.boardToString().contains("_"));
+    }
+
+    @Test
+    public void arcConsistency(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setArcConsistency(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertFalse(CuT.boardToString().contains("_"));
+        long nodes = CuT.getStats().getNodes();
+
+        // the pruning shows: forward checking alone expands more nodes
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(nodes < CuT.getStats().getNodes());
+
+        // a slot longer than any word has no words, and no support for the
+        // slots crossing it
+        CuT = new Board("long", new StringReader("_________________________\n_........................\n"
+                + "_........................\n"), new WordFinder());
+        CuT.setPrompting(false);
+        CuT.init();
+        CuT.setArcConsistency(true);
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertFalse(CuT.isStopped());
+    }
+
+    @Test
+    public void parallel(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setThreads(4);
+
+        Board result = CuT.backtrack();
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.isGoal());
+        Assert.assertFalse(result.boardToString().contains("_"));
+        // the original board is only read by the search
+        Assert.assertTrue(CuT.boardToString().contains("_"));
+
+        // the task that won the first search doesn't cancel the second
+        result = CuT.backtrack();
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.isGoal());
+        Assert.assertFalse(CuT.isStopped());
+
+        // each task's node budget counts from when it starts, not from the
+        // nodes the board had counted before
+        CuT = new Board("resources/board2.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+        CuT.setNodeLimit(2000);
+        Assert.assertNull(CuT.backtrack());
+        long before = CuT.getStats().getNodes();
+        CuT.setThreads(4);
+        CuT.setNodeLimit(50);
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isStopped());
+        Assert.assertTrue(CuT.getStats().getNodes() - before < 1000);
+    }
+
+    @Test
+    public void backjumping(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setBackjumping(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertFalse(CuT.boardToString().contains("_"));
+
+        // giving up part way down is not a jump at every level
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setBackjumping(true);
+        CuT.setNodeLimit(10);
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isStopped());
+        Assert.assertTrue(CuT.getBackjumpStats().startsWith("0 backjumps"));
+    }
+
+    /**
+     * The 2x2 block can't be filled from "ab" and "cd" whatever the across
+     * word beside it is, so once the block fails the search jumps straight
+     * past the across word's level instead of trying it again.
+     */
+    @Test
+    public void backjumpingJumps() throws IOException {
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "abc\nab\ncd\n".getBytes());
+        CuT = new Board("apart", new StringReader("___.__\n....__\n"), new WordFinder(file.getPath()));
+        CuT.setPrompting(false);
+        CuT.init();
+        CuT.setBackjumping(true);
+
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertFalse(CuT.isStopped());
+        Assert.assertTrue(CuT.getBackjumpStats().startsWith("1 backjumps"));
+    }
+
+    /**
+     * Every word crossing "aa" can start or end with its a, so least
+     * constraining value ordering tries it first in every slot, whatever
+     * the dictionary order.
+     */
+    @Test
+    public void leastConstraining() throws IOException {
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "zq\nad\nac\nab\nda\nca\nba\naa\n".getBytes());
+        WordFinder wordFinder = new WordFinder(file.getPath());
+        for (int seed = 0; seed < 5; seed++){
+            CuT = new Board("aa", new StringReader("__\n__\n"), wordFinder);
+            CuT.setPrompting(false);
+            CuT.init();
+            CuT.setSeed(seed);
+            CuT.setForwardChecking(true);
+            CuT.setLeastConstraining(true);
+            CuT.setShuffleTies(false);
+
+            Assert.assertNotNull(CuT.backtrack());
+            Assert.assertEquals("aa\naa", CuT.boardToString().trim());
+            Assert.assertEquals(0, CuT.getStats().getBacktracks());
+        }
+
+        // and on a real board it backtracks less
+        long[] backtracks = new long[2];
+        for (int lcv = 0; lcv < 2; lcv++){
+            CuT = new Board("resources/board1.txt");
+            CuT.init();
+            CuT.setPrompting(false);
+            CuT.setSeed(0);
+            CuT.setForwardChecking(true);
+            CuT.setLeastConstraining(lcv == 1);
+            CuT.setShuffleTies(false);
+            Assert.assertNotNull(CuT.backtrack());
+            Assert.assertTrue(CuT.isGoal());
+            backtracks[lcv] = CuT.getStats().getBacktracks();
+        }
+        Assert.assertTrue(backtracks[1] < backtracks[0]);
+    }
+
+    @Test
+    public void solutions(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        String blank = CuT.boardToString();
+
+        HashSet<String> grids = new HashSet<>();
+        Iterator<Board> solutions = CuT.solutions(20);
+        while (solutions.hasNext()){
+            Board solution = solutions.next();
+            Assert.assertTrue(solution.isGoal());
+            Assert.assertTrue(grids.add(solution.boardToString()));
+            List<String> words = solution.getWords();
+            Assert.assertEquals(words.size(), new HashSet<>(words).size());
+        }
+        Assert.assertEquals(20, grids.size());
+        Assert.assertEquals(blank, CuT.boardToString());
+
+        try (Stream<Board> stream = CuT.streamSolutions(0)){
+            Assert.assertEquals(3, stream.limit(3).count());
+            Assert.assertNotEquals(blank, CuT.boardToString()); // stopped part way
+        }
+        Assert.assertEquals(blank, CuT.boardToString());
+    }
+
+    @Test
+    public void transpositions(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+        CuT.setTranspositionCapacity(1 << 16);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertTrue(CuT.getTranspositions().getProbes() > 0);
+        Assert.assertTrue(CuT.getTranspositions().getHits() > 0);
+    }
+
+    /**
+     * The table only prunes what really is a dead end: on hundreds of tiny
+     * random dictionaries, some solvable and some not, searches with and
+     * without it agree on whether there is a solution.
+     */
+    @Test
+    public void transpositionsSound() throws IOException {
+        Random rand = new Random(1);
+        int solvable = 0;
+        for (int t = 0; t < 300; t++){
+            StringBuilder words = new StringBuilder();
+            for (int i = 2 + rand.nextInt(6); i > 0; i--){
+                for (int j = 0; j < 3; j++){ words.append((char) ('a' + rand.nextInt(4))); }
+                words.append('\n');
+            }
+            File file = File.createTempFile("words", ".txt");
+            file.deleteOnExit();
+            Files.write(file.toPath(), words.toString().getBytes());
+            WordFinder wordFinder = new WordFinder(file.getPath());
+
+            for (boolean arcConsistency : new boolean[]{false, true}){
+                boolean[] solved = new boolean[2];
+                for (int tt = 0; tt < 2; tt++){
+                    CuT = new Board("random", new StringReader("___\n___\n___\n"), wordFinder);
+                    CuT.setPrompting(false);
+                    CuT.init();
+                    CuT.setSeed(t);
+                    CuT.setForwardChecking(true);
+                    CuT.setArcConsistency(arcConsistency);
+                    if (tt == 1){ CuT.setTranspositionCapacity(1 << 10); }
+                    Board result = CuT.backtrack();
+                    solved[tt] = result != null;
+                    if (solved[tt]){ Assert.assertTrue(result.isGoal()); }
+                }
+                Assert.assertEquals(words.toString(), solved[0], solved[1]);
+                if (solved[0]){ solvable++; }
+            }
+        }
+        // both kinds of board were tried
+        Assert.assertTrue(solvable > 100 && solvable < 500);
+    }
+
+    @Test
+    public void budgets(){
+        CuT = new Board("resources/large50x50.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+        CuT.setNodeLimit(20);
+
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isStopped());
+        Assert.assertEquals(20, CuT.getStats().getNodes());
+        Board partial = CuT.getBestPartial();
+        Assert.assertFalse(partial.isGoal());
+        Assert.assertTrue(partial.getCompleteSlots() > 0);
+        Assert.assertEquals(0, CuT.getCompleteSlots()); // rolled back
+
+        // running out of budget only stops that search, not the next one
+        CuT = new Board(FILENAME);
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setForwardChecking(true);
+        AtomicBoolean shared = new AtomicBoolean(false);
+        CuT.setCancellation(shared);
+        CuT.setNodeLimit(1);
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isStopped());
+        Assert.assertFalse(shared.get());
+        CuT.setNodeLimit(0);
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertFalse(CuT.isStopped());
+
+        CuT = new Board("resources/large50x50.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setForwardChecking(true);
+        CuT.setTimeLimit(1);
+        long start = System.nanoTime();
+        Assert.assertNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isStopped());
+        Assert.assertTrue(System.nanoTime() - start < 5_000_000_000L);
+
+        CuT = new Board(FILENAME);
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setForwardChecking(true);
+        CuT.setNodeLimit(1_000_000);
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertFalse(CuT.isStopped());
+    }
+
+    /** A board that can't be read is an error, not an empty board. */
+    @Test
+    public void unreadable(){
+        try {
+            new Board("resources/missing.txt", new WordFinder());
+            Assert.fail();
+        }catch (UncheckedIOException e){
+            Assert.assertTrue(e.getMessage().contains("missing.txt"));
+        }
+    }
+
+    /**
+     * A cell can start both an ACROSS and a DOWN slot; both are found, and
+     * each records crossing the other there.
+     */
+    @Test
+    public void sharedStart(){
+        CuT = new Board("corner", new StringReader("___\n_..\n_..\n"), new WordFinder());
+        CuT.setPrompting(false);
+        CuT.init();
+
+        List<Slot> slots = CuT.getSlots();
+        Assert.assertEquals(2, slots.size());
+        Slot across = slots.get(0);
+        Slot down = slots.get(1);
+        Assert.assertEquals(Board.Direction.ACROSS, across.direction);
+        Assert.assertEquals(Board.Direction.DOWN, down.direction);
+        Assert.assertEquals(across.cells[0], down.cells[0]);
+        Assert.assertEquals(3, across.length());
+        Assert.assertEquals(3, down.length());
+
+        Assert.assertEquals(1, across.crossings.length);
+        Assert.assertSame(down, across.crossings[0].other);
+        Assert.assertEquals(0, across.crossings[0].index);
+        Assert.assertEquals(0, across.crossings[0].otherIndex);
+        Assert.assertEquals(1, down.crossings.length);
+        Assert.assertSame(across, down.crossings[0].other);
+    }
+
+    @Test
+    public void rectangular(){
+        CuT = new Board("resources/wide15x60.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        String[] rows = CuT.boardToString().split("\n");
+        Assert.assertEquals(15, rows.length);
+        Assert.assertEquals(60, rows[0].length());
+        Assert.assertFalse(CuT.boardToString().contains("_"));
+    }
+
+    @Test
+    public void large(){
+        // deep enough to overflow the default stack if searched in place
+        CuT = new Board("resources/large100x100.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setForwardChecking(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        Assert.assertTrue(CuT.isGoal());
+        Assert.assertFalse(CuT.boardToString().contains("_"));
+
+        // and so are a parallel search's tasks
+        CuT = new Board("resources/large100x100.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setSeed(0);
+        CuT.setThreads(4);
+        Board result = CuT.backtrack();
+        Assert.assertNotNull(result);
+        Assert.assertTrue(result.isGoal());
+    }
+
+    @Test
+    public void stats(){
+        CuT = new Board("resources/board1.txt");
+        CuT.init();
+        CuT.setPrompting(false);
+        CuT.setForwardChecking(true);
+
+        Assert.assertNotNull(CuT.backtrack());
+        SearchStats stats = CuT.getStats();
+        Assert.assertTrue(stats.getNodes() > 0);
+        Assert.assertTrue(stats.getMaxDepth() > 0);
+        Assert.assertTrue(stats.getMeanCandidates() >= 1);
+        Assert.assertTrue(stats.getGoalChecks() >= 1);
+    }
 }
@@ -0,0 +1,66 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests that a compiled dictionary answers exactly like the word list it
+ * was compiled from, and that a file from another version is refused.
+ *
+ * @author paul g
+ */
+public class DictionaryFileTest {
+
+    private static final String TEXT = "resources/ospd.txt";
+    private static final String[] PATTERNS = {
+            "\\b...\\b", "\\bc.t\\b", "\\bs.a.e\\b", "\\b..........\\b", "\\bzzzzz\\b", "[0-9]"
+    };
+
+    private File compiled;
+
+    @Before
+    public void setUp() throws IOException {
+        compiled = File.createTempFile("ospd", ".dict");
+        compiled.deleteOnExit();
+        DictionaryFile.compile(TEXT, compiled.getPath());
+    }
+
+    @Test
+    public void matchesText(){
+        for (WordFinder.Backend backend : WordFinder.Backend.values()){
+            WordFinder text = new WordFinder(TEXT, backend);
+            WordFinder CuT = new WordFinder(compiled.getPath(), backend);
+            for (String pattern : PATTERNS){
+                Assert.assertEquals(text.findMatches(pattern), CuT.findMatches(pattern));
+            }
+        }
+    }
+
+    @Test
+    public void index() throws IOException {
+        WordIndex text = new WordFinder(TEXT, WordFinder.Backend.INDEX).getIndex();
+        WordIndex CuT = new DictionaryFile(DictionaryFile.map(compiled.getPath())).getIndex();
+        for (int len = 0; len < 22; len++){
+            Assert.assertEquals(text.count(len), CuT.count(len));
+        }
+        Assert.assertEquals(text.getWord(5, 100), CuT.getWord(5, 100));
+        Assert.assertEquals(text.domainOf("c....").size(), CuT.domainOf("c....").size());
+    }
+
+    @Test
+    public void version() throws IOException {
+        try (RandomAccessFile f = new RandomAccessFile(compiled, "rw")){
+            f.seek(4);
+            f.writeInt(DictionaryFile.VERSION + 1);
+        }
+        try {
+            new DictionaryFile(DictionaryFile.map(compiled.getPath()));
+            Assert.fail("opened a dictionary from another version");
+        }catch (IOException e){
+            Assert.assertTrue(e.getMessage().contains("recompile"));
+        }
+    }
+}
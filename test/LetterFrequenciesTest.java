@@ -0,0 +1,33 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests the letter counts against a word list small enough to count by
+ * hand.
+ *
+ * @author paul g
+ */
+public class LetterFrequenciesTest {
+
+    private static final String WORDS = "foo\nbar\nlou\ncar\nbat\nbarbie\n";
+
+    private LetterFrequencies CuT;
+
+    @Test
+    public void counts(){
+        CuT = new LetterFrequencies(new WordIndex(WORDS));
+
+        Assert.assertEquals(2, CuT.count(3, 0, 'b'));
+        Assert.assertEquals(3, CuT.count(3, 1, 'a'));
+        Assert.assertEquals(2, CuT.count(3, 2, 'r'));
+        Assert.assertEquals(0, CuT.count(3, 0, 'z'));
+        Assert.assertEquals(1, CuT.count(6, 0, 'b'));
+        Assert.assertEquals(0, CuT.count(4, 0, 'b'));
+        Assert.assertEquals(0, CuT.count(20, 0, 'b'));
+
+        int[] first = CuT.atPosition(3, 0);
+        Assert.assertEquals(26, first.length);
+        Assert.assertEquals(2, first['b' - 'a']);
+        Assert.assertEquals(1, first['f' - 'a']);
+    }
+}
@@ -0,0 +1,72 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests that the packed scan finds the same words as the positional index,
+ * whichever kernel it scans with.
+ *
+ * @author paul g
+ */
+public class PackedWordsTest {
+
+    private static final String WORDS = "tester\nfoo\nbar\nlou\ncar\nfullhouse\nbarbie\nrhubarb\n";
+
+    private PackedWords CuT;
+
+    @Test
+    public void test_slot_patterns(){
+        CuT = new PackedWords(WORDS, ScanKernel.SCALAR);
+        Assert.assertTrue(CuT.isComplete());
+
+        Assert.assertEquals(Arrays.asList("bar", "car"), CuT.findMatches(".ar"));
+        Assert.assertEquals(Arrays.asList("foo", "bar", "lou", "car"), CuT.findMatches("..."));
+        Assert.assertEquals(Arrays.asList("barbie"), CuT.findMatches("b....e"));
+        Assert.assertTrue(CuT.findMatches("x..").isEmpty());
+        Assert.assertTrue(CuT.findMatches("..........").isEmpty());
+        Assert.assertFalse(new PackedWords("foo\nBar\n").isComplete());
+    }
+
+    @Test
+    public void test_matches_index(){
+        WordFinder finder = new WordFinder();
+        WordIndex index = new WordIndex(finder.fileContents);
+        String[] patterns = {"c.t..", "....", "q", "..a..e.", "zzz", "s..........",
+                "...........s.", "..............e", "..................."};
+        for (ScanKernel kernel : new ScanKernel[]{ScanKernel.SCALAR, ScanKernel.load()}){
+            CuT = new PackedWords(finder.fileContents, kernel);
+            for (String pattern : patterns){
+                Assert.assertEquals(pattern, index.findMatches(pattern), CuT.findMatches(pattern));
+                Assert.assertEquals(pattern, index.findMatches(pattern).size(),
+                        CuT.cursor(pattern, null, 0).size());
+            }
+        }
+    }
+
+    /**
+     * Run with --add-modules jdk.incubator.vector, and src/vector compiled,
+     * to test the SIMD kernel; without the module this only tests that the
+     * scan falls back to the scalar kernel. Either way, the loaded kernel
+     * must find what the scalar one does, over arrays of every length up
+     * to a few vectors, so that the tail loop is covered too.
+     */
+    @Test
+    public void test_kernels(){
+        boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        Assert.assertEquals(vectorModule, new PackedWords(WORDS).isVectorized());
+
+        ScanKernel kernel = ScanKernel.load();
+        Random rand = new Random(0);
+        for (int length = 0; length <= 70; length++){
+            long[] words = new long[length];
+            for (int i = 0; i < length; i++){ words[i] = rand.nextInt(8); }
+            long[] expected = new long[(length + 63) / 64];
+            long[] actual = new long[expected.length];
+            ScanKernel.SCALAR.scan(words, 6, 2, expected);
+            kernel.scan(words, 6, 2, actual);
+            Assert.assertArrayEquals(expected, actual);
+        }
+    }
+}
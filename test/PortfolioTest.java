@@ -0,0 +1,25 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests that a portfolio returns a solved board and names its winner.
+ *
+ * @author paul g
+ */
+public class PortfolioTest {
+
+    private static final String FILENAME = "resources/board1.txt";
+
+    private Portfolio CuT;
+
+    @Test
+    public void solve() throws InterruptedException {
+        CuT = new Portfolio(FILENAME, new WordFinder());
+        CuT.addDefaults(3, 42);
+
+        Portfolio.Result result = CuT.solve();
+        Assert.assertNotNull(result.getWinner());
+        Assert.assertNotNull(result.getBoard());
+        Assert.assertTrue(result.getBoard().isGoal());
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests that the server solves what it is sent, and turns requests away
+ * once it is full.
+ *
+ * @author paul g
+ */
+public class ServerTest {
+
+    private Server CuT;
+
+    @Test
+    public void solve() throws IOException {
+        WordFinder words = new WordFinder();
+        CuT = new Server(words, new Batch(words), 2, 2);
+        CuT.start(0);
+        try {
+            String[] response = post(Files.readAllBytes(Paths.get("resources/board0.txt")));
+            Assert.assertEquals("200", response[0]);
+            Assert.assertTrue(response[1].contains("\"status\":\"solved\""));
+            Assert.assertTrue(response[1].contains("\"grid\":["));
+
+            Assert.assertEquals("400", post(new byte[0])[0]);
+        }finally {
+            CuT.stop();
+        }
+    }
+
+    @Test
+    public void backpressure() throws Exception {
+        WordFinder words = new WordFinder();
+        Batch solver = new Batch(words);
+        solver.setTimeout(3000);
+        CuT = new Server(words, solver, 1, 0);
+        CuT.start(0);
+        try {
+            // board2 runs until its timeout, holding the only place there is
+            byte[] hard = Files.readAllBytes(Paths.get("resources/board2.txt"));
+            String[][] first = new String[1][];
+            Thread t = new Thread(() -> {
+                try {
+                    first[0] = post(hard);
+                }catch (IOException e){
+                    first[0] = new String[]{e.toString(), ""};
+                }
+            });
+            t.start();
+            for (int i = 0; i < 200 && CuT.getPending() == 0; i++){ Thread.sleep(10); }
+            Assert.assertEquals(1, CuT.getPending());
+
+            Assert.assertEquals("503", post(Files.readAllBytes(Paths.get("resources/board0.txt")))[0]);
+            Assert.assertEquals(1, CuT.getRejected());
+
+            t.join();
+            Assert.assertEquals("200", first[0][0]);
+            Assert.assertTrue(first[0][1].contains("\"status\":\"timeout\""));
+            Assert.assertEquals(0, CuT.getPending());
+        }finally {
+            CuT.stop();
+        }
+    }
+
+    @Test
+    public void slowSender() throws Exception {
+        WordFinder words = new WordFinder();
+        CuT = new Server(words, new Batch(words), 1, 0);
+        CuT.start(0);
+        try {
+            // a client that never finishes sending its board holds its place
+            try (Socket slow = new Socket("localhost", CuT.getPort())){
+                OutputStream out = slow.getOutputStream();
+                out.write(("POST /solve HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n___\n")
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                out.flush();
+                for (int i = 0; i < 200 && CuT.getPending() == 0; i++){ Thread.sleep(10); }
+                Assert.assertEquals(1, CuT.getPending());
+
+                Assert.assertEquals("503", post(Files.readAllBytes(Paths.get("resources/board0.txt")))[0]);
+            }
+            for (int i = 0; i < 200 && CuT.getPending() > 0; i++){ Thread.sleep(10); }
+            Assert.assertEquals(0, CuT.getPending());
+            Assert.assertEquals("200", post(Files.readAllBytes(Paths.get("resources/board0.txt")))[0]);
+        }finally {
+            CuT.stop();
+        }
+    }
+
+    /** @return the status code and the body */
+    private String[] post(byte[] board) throws IOException {
+        URL url = new URL("http://localhost:" + CuT.getPort() + "/solve");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()){
+            out.write(board);
+        }
+        int code = connection.getResponseCode();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = (code < 400) ? connection.getInputStream() : connection.getErrorStream()){
+            in.transferTo(body);
+        }
+        return new String[]{String.valueOf(code), body.toString("UTF-8")};
+    }
+}
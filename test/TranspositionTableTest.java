@@ -0,0 +1,54 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests the transposition table's lookups, its bound, and which entries
+ * it evicts.
+ *
+ * @author paul g
+ */
+public class TranspositionTableTest {
+
+    private TranspositionTable CuT;
+
+    @Test
+    public void containsWhatWasAdded(){
+        CuT = new TranspositionTable(1024);
+        Assert.assertFalse(CuT.contains(42));
+        CuT.add(42, 10);
+        Assert.assertTrue(CuT.contains(42));
+        Assert.assertFalse(CuT.contains(43));
+        Assert.assertEquals(3, CuT.getProbes());
+        Assert.assertEquals(1, CuT.getHits());
+    }
+
+    @Test
+    public void neverStoresZero(){
+        CuT = new TranspositionTable(16);
+        CuT.add(0, 10);
+        Assert.assertFalse(CuT.contains(0));
+        Assert.assertEquals(0, CuT.getStores());
+    }
+
+    @Test
+    public void bounded(){
+        CuT = new TranspositionTable(100);
+        Assert.assertEquals(128, CuT.getCapacity());
+        for (long hash = 1; hash <= 1000; hash++){
+            CuT.add(hash, 1);
+        }
+        Assert.assertEquals(1000 - 128, CuT.getEvictions());
+    }
+
+    @Test
+    public void keepsTheDearest(){
+        CuT = new TranspositionTable(2);  // one bucket, so everything collides
+        CuT.add(1, 1000);
+        for (long hash = 2; hash <= 100; hash++){
+            CuT.add(hash, 1);
+        }
+        Assert.assertTrue(CuT.contains(1));
+        Assert.assertTrue(CuT.contains(100));
+        Assert.assertFalse(CuT.contains(99));
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests that a cursor returns every match once, in either order, and
+ * respects its limit.
+ *
+ * @author paul g
+ */
+public class WordCursorTest {
+
+    private static final String WORDS = "foo\nbar\nlou\ncar\nbat\nbarbie\n";
+
+    private WordCursor CuT;
+
+    @Test
+    public void inOrder(){
+        CuT = new WordIndex(WORDS).cursor("...", null, 0);
+        Assert.assertEquals(5, CuT.size());
+        Assert.assertEquals(Arrays.asList("foo", "bar", "lou", "car", "bat"), CuT.remaining());
+
+        ArrayList<String> words = new ArrayList<>();
+        while (CuT.hasNext()){ words.add(CuT.next()); }
+        Assert.assertEquals(new WordIndex(WORDS).findMatches("..."), words);
+        Assert.assertTrue(CuT.isEmpty());
+    }
+
+    @Test
+    public void randomOrder(){
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 200; i++){ list.add("w" + i); }
+        CuT = WordCursor.of(list, new Random(0), 0);
+
+        ArrayList<String> words = new ArrayList<>();
+        while (CuT.hasNext()){ words.add(CuT.next()); }
+        Assert.assertEquals(200, words.size());
+        Assert.assertEquals(new HashSet<>(list), new HashSet<>(words));
+        Assert.assertFalse(list.equals(words));
+    }
+
+    @Test
+    public void limitAndRemove(){
+        CuT = new WordIndex(WORDS).cursor(".a.", new Random(0), 2);
+        Assert.assertEquals(2, CuT.size());
+        Assert.assertTrue(CuT.remove("car"));
+        Assert.assertFalse(CuT.remove("car"));
+        Assert.assertEquals(1, CuT.size());
+        String word = CuT.next();
+        Assert.assertTrue(word.equals("bar") || word.equals("bat"));
+        Assert.assertFalse(CuT.hasNext());
+    }
+
+    @Test
+    public void ordered(){
+        CuT = new WordIndex(WORDS).cursor("...", null, 0);
+        Assert.assertEquals(0, CuT.nextId());
+        Assert.assertEquals("bar", CuT.word(1));
+        Assert.assertArrayEquals(new int[]{1, 2, 3, 4}, CuT.remainingIds());
+
+        CuT = CuT.ordered(new int[]{4, 1, 3});
+        Assert.assertEquals(Arrays.asList("bat", "bar", "car"), CuT.remaining());
+        Assert.assertEquals(1, CuT.take("bar"));
+        Assert.assertEquals(-1, CuT.take("foo"));
+        Assert.assertEquals(4, CuT.nextId());
+        Assert.assertEquals("car", CuT.next());
+        Assert.assertFalse(CuT.hasNext());
+    }
+}
@@ -1,8 +1,12 @@
 import org.junit.Test;
 import org.junit.Assert;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Tests functionality of WordFinder, since without WordFinder, CrossWorder
@@ -85,5 +89,135 @@ public class WordFinderTest {
         Assert.assertEquals(EXPECTED_MATCH_LISTSIZE, matches.size());
     }
 
+    /**
+     * Repeated queries should come from the cache, and callers must not be
+     * able to corrupt it through the lists they get back.
+     */
+    @Test
+    public void test_cache(){
+        CuT = new WordFinder(TEST_FILENAME);
+        ArrayList<String> matches = CuT.findMatches(SAMPLE_REGEX_2);
+        Assert.assertEquals(0, CuT.getResultCache().getHits());
+        matches.clear();
+
+        matches = CuT.findMatches(SAMPLE_REGEX_2);
+        Assert.assertEquals(1, CuT.getResultCache().getHits());
+        Assert.assertEquals(4, matches.size());
+
+        CuT.findMatches(SAMPLE_REGEX_1);
+        CuT.findMatches(SAMPLE_REGEX_1);
+        Assert.assertEquals(1, CuT.getPatternCache().getMisses());
+
+        CuT.setCacheCapacity(1);
+        Assert.assertEquals(1, CuT.getResultCache().getEvictions());
+    }
+
+    /**
+     * Added and removed words, and overlaid lists, must show in every kind
+     * of query, on every backend, but never in a snapshot taken before.
+     */
+    @Test
+    public void test_edits(){
+        for (WordFinder.Backend backend : WordFinder.Backend.values()){
+            CuT = new WordFinder(TEST_FILENAME, backend);
+            Assert.assertEquals(Arrays.asList("bar", "car"), CuT.findMatches("\\b.ar\\b"));
+            WordFinder before = CuT.snapshot();
+
+            CuT.addWord("Far");
+            CuT.removeWord("bar");
+            Assert.assertEquals(backend.name(), Arrays.asList("car", "far"), CuT.findMatches("\\b.ar\\b"));
+            Assert.assertEquals(backend.name(), Arrays.asList("car", "far"), CuT.findMatches(SAMPLE_REGEX_1));
+            Assert.assertEquals(2, CuT.candidates(".ar", null, 0).size());
+            Assert.assertTrue(CuT.isWord("far"));
+            Assert.assertFalse(CuT.isWord("bar"));
+            Assert.assertEquals(2, CuT.getVersion());
+
+            Assert.assertEquals(Arrays.asList("bar", "car"), before.findMatches("\\b.ar\\b"));
+            Assert.assertTrue(before.isWord("bar"));
+            Assert.assertEquals(0, before.getVersion());
+        }
+    }
+
+    /** The highest priority list that has a word decides; bans win ties. */
+    @Test
+    public void test_overlays(){
+        CuT = new WordFinder(TEST_FILENAME);
+        CuT.putOverlay("themed", 1, false, Arrays.asList("zap", "bar"));
+        CuT.putOverlay("banned", 1, true, Arrays.asList("zap", "car"));
+        Assert.assertFalse(CuT.isWord("zap"));
+        Assert.assertFalse(CuT.isWord("car"));
+        Assert.assertTrue(CuT.isWord("bar"));
+
+        CuT.putOverlay("themed", 2, false, Arrays.asList("zap", "bar"));
+        Assert.assertTrue(CuT.isWord("zap"));
+        Assert.assertEquals(Arrays.asList("bar", "zap"), CuT.findMatches("\\b.a.\\b"));
+        Assert.assertEquals(2, CuT.getIndex().findMatches(".a.").size());
+
+        CuT.removeWord("zap");
+        Assert.assertFalse(CuT.isWord("zap"));
+        CuT.removeOverlay("banned");
+        Assert.assertTrue(CuT.isWord("car"));
+        long version = CuT.getVersion();
+        CuT.putOverlay("themed", 2, false, Collections.singletonList("bar"));
+        Assert.assertEquals(version + 1, CuT.getVersion());
+        Assert.assertFalse(CuT.isWord("zap"));
+
+        try {
+            CuT.snapshot().addWord("zip");
+            Assert.fail();
+        }catch (IllegalStateException e){
+            // expected
+        }
+        try {
+            CuT.addWord("two words");
+            Assert.fail();
+        }catch (IllegalArgumentException e){
+            // expected
+        }
+    }
+
+    /**
+     * Building the index while the dictionary is edited can't deadlock. The
+     * test holds the WordFinder's lock, as an edit does, until the index
+     * build is waiting for it, then edits.
+     */
+    @Test
+    public void test_index_while_editing() throws InterruptedException {
+        CuT = new WordFinder(TEST_FILENAME, WordFinder.Backend.REGEX); // no index yet
+        WordFinder words = CuT;
+        Thread reader = new Thread(words::getIndex);
+        Thread editor = new Thread(() -> {
+            synchronized (words){
+                reader.start();
+                while (reader.getState() != Thread.State.BLOCKED){ Thread.yield(); }
+                words.addWord("zap");
+            }
+        });
+        reader.setDaemon(true);
+        editor.setDaemon(true);
+        editor.start();
+        editor.join(10_000);
+        reader.join(10_000);
+        Assert.assertFalse(editor.isAlive() || reader.isAlive());
+        Assert.assertTrue(words.getIndex().findMatches("zap").contains("zap"));
+    }
+
+    /** A watched list is reloaded when its file changes. */
+    @Test
+    public void test_watch() throws IOException, InterruptedException {
+        File file = File.createTempFile("words", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "zap\n".getBytes());
+
+        CuT = new WordFinder(TEST_FILENAME);
+        CuT.watch("watched", 1, false, file.getPath());
+        Assert.assertTrue(CuT.isWord("zap"));
+
+        Files.write(file.toPath(), "zip\n".getBytes());
+        for (int i = 0; i < 200 && !CuT.isWord("zip"); i++){ Thread.sleep(50); }
+        CuT.stopWatching();
+        Assert.assertTrue(CuT.isWord("zip"));
+        Assert.assertFalse(CuT.isWord("zap"));
+    }
 
 }
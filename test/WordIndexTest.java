@@ -0,0 +1,73 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tests that the positional index agrees with the regular expressions it
+ * replaces.
+ *
+ * @author paul g
+ */
+public class WordIndexTest {
+
+    private static final String WORDS = "tester\nfoo\nbar\nlou\ncar\nfullhouse\nbarbie\nrhubarb\n";
+
+    private WordIndex CuT;
+
+    @Test
+    public void test_slot_patterns(){
+        CuT = new WordIndex(WORDS);
+        Assert.assertTrue(CuT.isComplete());
+
+        Assert.assertEquals(Arrays.asList("bar", "car"), CuT.findMatches(".ar"));
+        Assert.assertEquals(Arrays.asList("foo", "bar", "lou", "car"), CuT.findMatches("..."));
+        Assert.assertEquals(Arrays.asList("barbie"), CuT.findMatches("b....e"));
+        Assert.assertTrue(CuT.findMatches("x..").isEmpty());
+        Assert.assertTrue(CuT.findMatches("..........").isEmpty());
+    }
+
+    @Test
+    public void test_incomplete(){
+        CuT = new WordIndex("foo\nBar\n");
+        Assert.assertFalse(CuT.isComplete());
+    }
+
+    /** Every slot-shaped query must return exactly what the regex did. */
+    @Test
+    public void test_matches_regex(){
+        WordFinder finder = new WordFinder();
+        String[] patterns = {"c.t..", "....", "q", "..a..e.", "zzz", "s.........."};
+        for (String pattern : patterns){
+            ArrayList<String> expected = new ArrayList<>();
+            Matcher m = Pattern.compile("\\b" + pattern + "\\b").matcher(finder.fileContents);
+            while (m.find()){
+                expected.add(m.group());
+            }
+            Assert.assertEquals(pattern, expected, finder.findMatches("\\b" + pattern + "\\b"));
+        }
+    }
+
+    /** with() makes a new index with the changes, leaving the old one as it was. */
+    @Test
+    public void test_with(){
+        CuT = new WordIndex(WORDS);
+        WordIndex changed = CuT.with(Arrays.asList("far", "hijacking"), Arrays.asList("bar", "barbie"));
+
+        Assert.assertEquals(Arrays.asList("car", "far"), changed.findMatches(".ar"));
+        Assert.assertEquals(Arrays.asList("foo", "lou", "car", "far"), changed.findMatches("..."));
+        Assert.assertTrue(changed.findMatches("b....e").isEmpty());
+        Assert.assertEquals(Arrays.asList("hijacking"), changed.findMatches("h.j......"));
+        Assert.assertEquals(2, changed.cursor(".ar", null, 0).size());
+
+        Assert.assertEquals(Arrays.asList("bar", "car"), CuT.findMatches(".ar"));
+        Assert.assertEquals(Arrays.asList("barbie"), CuT.findMatches("b....e"));
+        Assert.assertTrue(CuT.findMatches("h.j......").isEmpty());
+
+        WordIndex back = changed.with(Arrays.asList("bar"), Arrays.asList("far"));
+        Assert.assertEquals(Arrays.asList("car", "bar"), back.findMatches(".ar"));
+    }
+}
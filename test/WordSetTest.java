@@ -0,0 +1,41 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+/**
+ * Tests that the byte arena set finds exactly the words it was given,
+ * whether asked with a String or a buffer.
+ *
+ * @author paul g
+ */
+public class WordSetTest {
+
+    private static final String WORDS = "tester\nfoo\r\nbar\n\nlou\ncar\nfoo\nfullhouse\nbarbie\nrhubarb\n";
+
+    private WordSet CuT;
+
+    @Test
+    public void contains(){
+        CuT = new WordSet(WORDS);
+        Assert.assertEquals(8, CuT.size());
+        for (String word : new String[]{"tester", "foo", "bar", "rhubarb", "fullhouse"}){
+            Assert.assertTrue(word, CuT.contains(word));
+        }
+        for (String word : new String[]{"", "ba", "bars", "foo\r", "Bar", "rhubar"}){
+            Assert.assertFalse(word, CuT.contains(word));
+        }
+
+        char[] buffer = "carpet".toCharArray();
+        Assert.assertTrue(CuT.contains(buffer, 3));
+        Assert.assertFalse(CuT.contains(buffer, 4));
+    }
+
+    @Test
+    public void matchesDictionary(){
+        WordFinder finder = new WordFinder();
+        CuT = new WordSet(finder.fileContents);
+        for (String word : WordMatcher.splitLines(finder.fileContents)){
+            Assert.assertTrue(word, CuT.contains(word));
+        }
+        Assert.assertFalse(CuT.contains("qzx"));
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.Test;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests that the DAWG backend finds the same words as the positional index.
+ *
+ * @author paul g
+ */
+public class WordTrieTest {
+
+    private static final String WORDS = "tester\nfoo\nbar\nlou\ncar\nfullhouse\nbarbie\nrhubarb\n";
+
+    private WordTrie CuT;
+
+    @Test
+    public void test_slot_patterns(){
+        CuT = new WordTrie(WORDS);
+        Assert.assertTrue(CuT.isComplete());
+
+        Assert.assertEquals(Arrays.asList("bar", "car"), CuT.findMatches(".ar"));
+        Assert.assertEquals(Arrays.asList("bar", "car", "foo", "lou"), CuT.findMatches("..."));
+        Assert.assertEquals(Arrays.asList("barbie"), CuT.findMatches("b....e"));
+        Assert.assertTrue(CuT.findMatches("ba.").size() == 1);
+        Assert.assertTrue(CuT.findMatches("x..").isEmpty());
+        Assert.assertTrue(CuT.findMatches("..........").isEmpty());
+    }
+
+    /** Shared suffixes ("bar"/"car") must collapse into a single path. */
+    @Test
+    public void test_suffixes_merged(){
+        CuT = new WordTrie("bar\ncar\n");
+        // root, "ar", "r", end of word
+        Assert.assertEquals(4, CuT.getNodeCount());
+    }
+
+    @Test
+    public void test_matches_index(){
+        WordFinder finder = new WordFinder();
+        WordIndex index = new WordIndex(finder.fileContents);
+        CuT = new WordTrie(finder.fileContents);
+        String[] patterns = {"c.t..", "....", "q", "..a..e.", "zzz", "s..........", "..................."};
+        for (String pattern : patterns){
+            ArrayList<String> expected = index.findMatches(pattern);
+            Collections.sort(expected);
+            Assert.assertEquals(pattern, expected, CuT.findMatches(pattern));
+        }
+    }
+}